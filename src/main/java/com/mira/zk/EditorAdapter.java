@@ -0,0 +1,69 @@
+package com.mira.zk;
+
+import org.zkoss.zk.ui.Component;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Adapter of editor component: reads and writes its value and names its change event, so editor could be bound.
+ * Adapters are registered in {@link ZkComponents#registerEditorAdapter(Class, EditorAdapter)} by class of editor,
+ * editors themselves are created by {@link EditorFactory}.
+ *
+ * @param <C> class of editor
+ */
+public interface EditorAdapter<C extends Component> {
+  /**
+   * Reads value from editor
+   *
+   * @param editor editor
+   * @return value
+   */
+  Object getValue(C editor);
+
+  /**
+   * Writes value to editor
+   *
+   * @param editor editor
+   * @param value  value. Can be {@code null}
+   * @throws IllegalArgumentException if value can't be written to the editor
+   */
+  void setValue(C editor, Object value);
+
+  /**
+   * @return name of event, which is fired when user changes value, {@code null} if user can't change value
+   */
+  String getEventName();
+
+  /**
+   * Creates adapter from functions
+   *
+   * @param getter    reads value
+   * @param setter    writes value. Can be {@code null}, if value can't be written
+   * @param eventName name of change event. Can be {@code null}
+   * @param <C>       class of editor
+   * @return adapter
+   */
+  static <C extends Component> EditorAdapter<C> of(Function<C, Object> getter, BiConsumer<C, Object> setter,
+                                                   String eventName) {
+    return new EditorAdapter<C>() {
+      @Override
+      public Object getValue(C editor) {
+        return getter.apply(editor);
+      }
+
+      @Override
+      public void setValue(C editor, Object value) {
+        if (setter == null) {
+          throw new IllegalArgumentException(String.format("Unregistered class of editor %s", editor.getClass().getName()));
+        }
+        setter.accept(editor, value);
+      }
+
+      @Override
+      public String getEventName() {
+        return eventName;
+      }
+    };
+  }
+}
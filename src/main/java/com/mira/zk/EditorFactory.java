@@ -0,0 +1,104 @@
+package com.mira.zk;
+
+import org.zkoss.zk.ui.HtmlBasedComponent;
+import org.zkoss.zul.impl.FormatInputElement;
+import org.zkoss.zul.impl.InputElement;
+
+import java.util.function.Supplier;
+
+/**
+ * Factory of editors for values of some type. Every editor is created by supplier without reflection and configured
+ * with default properties of the current desktop and settings of the factory. Factory keeps no state per desktop,
+ * so it can be shared by all sessions.
+ *
+ * @param <C> class of editor
+ */
+public class EditorFactory<C extends HtmlBasedComponent> {
+  private final Supplier<C> supplier;
+  private String format;
+  private String constraint;
+  private String width;
+
+  /**
+   * Creates factory
+   *
+   * @param supplier creates new editor
+   */
+  public EditorFactory(Supplier<C> supplier) {
+    this.supplier = supplier;
+  }
+
+  /**
+   * @return format of editors, {@code null} if default format is used
+   */
+  public String getFormat() {
+    return format;
+  }
+
+  /**
+   * Setts format of editors. Is applied only to {@link FormatInputElement}s.
+   *
+   * @param format format
+   * @return себя же для последовательного вызова
+   */
+  public EditorFactory<C> setFormat(String format) {
+    this.format = format;
+    return this;
+  }
+
+  /**
+   * @return constraint of editors, {@code null} if there is no constraint
+   */
+  public String getConstraint() {
+    return constraint;
+  }
+
+  /**
+   * Setts constraint of editors, e.g. {@code "no empty"}. Is applied only to {@link InputElement}s.
+   *
+   * @param constraint constraint
+   * @return себя же для последовательного вызова
+   */
+  public EditorFactory<C> setConstraint(String constraint) {
+    this.constraint = constraint;
+    return this;
+  }
+
+  /**
+   * @return width of editors, {@code null} if default width is used
+   */
+  public String getWidth() {
+    return width;
+  }
+
+  /**
+   * Setts width of editors
+   *
+   * @param width width in px or %
+   * @return себя же для последовательного вызова
+   */
+  public EditorFactory<C> setWidth(String width) {
+    this.width = width;
+    return this;
+  }
+
+  /**
+   * Creates configured editor
+   *
+   * @return new editor
+   */
+  public C create() {
+    C editor = supplier.get();
+    editor.applyProperties();
+    if (format != null && editor instanceof FormatInputElement) {
+      ((FormatInputElement) editor).setFormat(format);
+    }
+    if (constraint != null && editor instanceof InputElement) {
+      ((InputElement) editor).setConstraint(constraint);
+    }
+    if (width != null) {
+      editor.setWidth(width);
+    }
+    return editor;
+  }
+}
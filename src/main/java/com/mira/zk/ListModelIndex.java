@@ -0,0 +1,143 @@
+package com.mira.zk;
+
+import org.zkoss.zul.ListModel;
+import org.zkoss.zul.Listbox;
+import org.zkoss.zul.event.ListDataEvent;
+import org.zkoss.zul.event.ListDataListener;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Hash index of list model elements for lookup of element position in constant time. Elements are identified
+ * by {@code equals}. Index listens to the model and is rebuilt on demand after contents of the model are changed,
+ * changes of selection don't affect it.
+ * <p>
+ * Elements which don't keep {@code hashCode} contract (override only {@code equals} or change hash while they are
+ * in the model) are still found: on a miss the model is scanned like {@link java.util.List#indexOf(Object)} does.
+ * <p>
+ * ZK models have no place for own data, so index of listbox model is kept in attribute of the listbox, see
+ * {@link #indexOf(Listbox, Object)}. {@link SharedListModel} has its own index shared by all its models.
+ */
+public class ListModelIndex implements ListDataListener, Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private static final String ATTRIBUTE = ListModelIndex.class.getName();
+
+  private final ListModel<?> model;
+  private transient Map<Object, Integer> positions;
+
+  /**
+   * Creates index of the model. Index is attached to the model until {@link #detach()} is called.
+   *
+   * @param model list model
+   */
+  public ListModelIndex(ListModel<?> model) {
+    this.model = model;
+    model.addListDataListener(this);
+  }
+
+  /**
+   * Finds position of the value in the model of listbox. Index is created on the first call and is kept
+   * in the listbox while its model is the same.
+   *
+   * @param listbox listbox
+   * @param value   searched value. Can be {@code null}
+   * @return index of the first element equal to value or -1, if nothing is found
+   */
+  public static int indexOf(Listbox listbox, Object value) {
+    ListModel<?> model = listbox.getModel();
+    if (model instanceof SharedListModel) {
+      return ((SharedListModel<?>) model).indexOf(value);
+    }
+    ListModelIndex index = (ListModelIndex) listbox.getAttribute(ATTRIBUTE);
+    if (index == null || index.model != model) {
+      if (index != null) {
+        index.detach();
+      }
+      index = new ListModelIndex(model);
+      listbox.setAttribute(ATTRIBUTE, index);
+    }
+    return index.indexOf(value);
+  }
+
+  /**
+   * Finds position of the value in the model.
+   *
+   * @param value searched value. Can be {@code null}
+   * @return index of the first element equal to value or -1, if nothing is found
+   */
+  public synchronized int indexOf(Object value) {
+    if (positions == null) {
+      rebuild();
+    }
+    Integer position = positions.get(value);
+    if (position != null && !isAt(position, value)) {
+      //элемент сдвинулся без события модели, перестроим индекс
+      rebuild();
+      position = positions.get(value);
+    }
+    return position != null ? position : scan(model, value);
+  }
+
+  /**
+   * Finds position of the value by linear scan
+   *
+   * @param model list model
+   * @param value searched value. Can be {@code null}
+   * @return index of the first element equal to value or -1, if nothing is found
+   */
+  static int scan(ListModel<?> model, Object value) {
+    for (int i = 0; i < model.getSize(); i++) {
+      if (Objects.equals(model.getElementAt(i), value)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Finds element of the model equal to the value.
+   *
+   * @param value searched value. Can be {@code null}
+   * @return element of the model or {@code null}, if nothing is found
+   */
+  public Object find(Object value) {
+    int position = indexOf(value);
+    return position >= 0 ? model.getElementAt(position) : null;
+  }
+
+  /**
+   * Detaches index from the model
+   */
+  public void detach() {
+    model.removeListDataListener(this);
+  }
+
+  @Override
+  public synchronized void onChange(ListDataEvent event) {
+    switch (event.getType()) {
+      case ListDataEvent.CONTENTS_CHANGED:
+      case ListDataEvent.INTERVAL_ADDED:
+      case ListDataEvent.INTERVAL_REMOVED:
+        positions = null;
+        break;
+      default:
+        //изменение выбора не меняет позиции элементов
+    }
+  }
+
+  private boolean isAt(int position, Object value) {
+    return position < model.getSize() && Objects.equals(model.getElementAt(position), value);
+  }
+
+  private void rebuild() {
+    int size = model.getSize();
+    positions = new HashMap<>(size * 4 / 3 + 1);
+    for (int i = 0; i < size; i++) {
+      positions.putIfAbsent(model.getElementAt(i), i);
+    }
+  }
+}
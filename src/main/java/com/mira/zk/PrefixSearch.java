@@ -0,0 +1,44 @@
+package com.mira.zk;
+
+import java.util.Locale;
+
+/**
+ * Common rules of search by typed prefix, which are shared by type-ahead navigation of lists and lookup editors:
+ * texts are compared trimmed and in lower case, so case of typed text is ignored.
+ */
+public final class PrefixSearch {
+  private PrefixSearch() {
+  }
+
+  /**
+   * Normalizes text for search: trims it and converts to lower case
+   *
+   * @param value value. Can be {@code null}
+   * @return normalized text
+   */
+  public static String normalize(Object value) {
+    return value != null ? value.toString().trim().toLowerCase(Locale.ROOT) : "";
+  }
+
+  /**
+   * Finds the first text which isn't less than the prefix. Texts which start with the prefix, if any, follow
+   * from this position.
+   *
+   * @param texts  sorted normalized texts
+   * @param prefix normalized prefix
+   * @return position in texts from 0 to {@code texts.length}
+   */
+  public static int lowerBound(String[] texts, String prefix) {
+    int low = 0;
+    int high = texts.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (texts[middle].compareTo(prefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,148 @@
+package com.mira.zk;
+
+import org.zkoss.zul.AbstractListModel;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Read-only list model over shared immutable list. Many models (e.g. lookup lists of editors in different
+ * desktops) could reference the same list, every model keeps only its own selection.
+ *
+ * @param <E> element class
+ */
+public class SharedListModel<E> extends AbstractListModel<E> {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Canonical shared lists by their contents. Key is the list of the canonical instance itself, so entry lives
+   * while any model references the instance.
+   */
+  private static final Map<List<?>, WeakReference<Shared<?>>> SHARED = new WeakHashMap<>();
+
+  private final Shared<E> shared;
+
+  /**
+   * Creates model over the list. List isn't copied, so it should not be changed.
+   *
+   * @param list shared list
+   */
+  public SharedListModel(List<E> list) {
+    this(new Shared<E>(list));
+  }
+
+  private SharedListModel(Shared<E> shared) {
+    this.shared = shared;
+  }
+
+  /**
+   * Creates model over shared copy of the collection. Collections with equal elements in the same order
+   * get the same copy.
+   *
+   * @param source elements of the model
+   * @param <E>    element class
+   * @return new model
+   */
+  public static <E> SharedListModel<E> of(Collection<? extends E> source) {
+    return new SharedListModel<E>(intern(Collections.unmodifiableList(new ArrayList<E>(source))));
+  }
+
+  /**
+   * Returns immutable copy of the collection. Copy is shared between collections with equal elements in the same
+   * order while any model over it is reachable.
+   *
+   * @param source collection
+   * @param <E>    element class
+   * @return immutable list
+   */
+  public static <E> List<E> share(Collection<? extends E> source) {
+    return SharedListModel.<E>of(source).shared.list;
+  }
+
+  private static <E> Shared<E> intern(List<E> snapshot) {
+    synchronized (SHARED) {
+      WeakReference<Shared<?>> reference = SHARED.get(snapshot);
+      Shared<E> result = reference != null ? (Shared<E>) reference.get() : null;
+      if (result == null) {
+        result = new Shared<E>(snapshot);
+        //ключ должен быть списком нового экземпляра, а put оставляет старый ключ
+        SHARED.remove(snapshot);
+        SHARED.put(snapshot, new WeakReference<Shared<?>>(result));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * @return shared list of elements. Can't be modified.
+   */
+  public List<E> getList() {
+    return Collections.unmodifiableList(shared.list);
+  }
+
+  /**
+   * Returns identity of the shared list: models over the same shared list return the same object.
+   * Could be used to count memory of shared list once.
+   *
+   * @return identity of the shared list
+   */
+  public Object getSharedIdentity() {
+    return shared;
+  }
+
+  /**
+   * Finds position of the value. Index of positions is built once for the shared list and is used by
+   * all models over it. If value isn't found by hash (e.g. its class overrides only {@code equals}),
+   * then the list is scanned.
+   *
+   * @param value searched value. Can be {@code null}
+   * @return index of the first element equal to value or -1, if nothing is found
+   */
+  public int indexOf(Object value) {
+    Integer position = shared.getPositions().get(value);
+    return position != null ? position : ListModelIndex.scan(this, value);
+  }
+
+  @Override
+  public E getElementAt(int index) {
+    return shared.list.get(index);
+  }
+
+  @Override
+  public int getSize() {
+    return shared.list.size();
+  }
+
+  /**
+   * Canonical instance of shared list. Models reference it strongly, and it references the list, which is
+   * the weak key of {@link #SHARED}.
+   */
+  private static class Shared<E> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<E> list;
+    private transient volatile Map<Object, Integer> positions;
+
+    Shared(List<E> list) {
+      this.list = list;
+    }
+
+    Map<Object, Integer> getPositions() {
+      Map<Object, Integer> result = positions;
+      if (result == null) {
+        result = new HashMap<>(list.size() * 4 / 3 + 1);
+        for (int i = 0; i < list.size(); i++) {
+          result.putIfAbsent(list.get(i), i);
+        }
+        positions = result;
+      }
+      return result;
+    }
+
+    private Object readResolve() {
+      //после десериализации снова разделяем список с равными ему
+      return intern(Collections.unmodifiableList(new ArrayList<E>(list)));
+    }
+  }
+}
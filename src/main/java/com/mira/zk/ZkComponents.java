@@ -4,16 +4,19 @@ import com.mira.utils.ClassUtils;
 import com.mira.utils.StringUtils;
 import com.mira.utils.collections.CollectionUtils;
 import com.mira.zk.binding.InlineEditorBinder;
+import com.mira.zk.components.AutocompleteCombo;
 import org.springframework.util.comparator.NullSafeComparator;
 import org.zkforge.ckez.CKeditor;
 import org.zkoss.zk.ui.Component;
 import org.zkoss.zk.ui.HtmlBasedComponent;
+import org.zkoss.zk.ui.event.Events;
 import org.zkoss.zul.*;
 import org.zkoss.zul.ext.Selectable;
 import org.zkoss.zul.impl.InputElement;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.mira.utils.ClassUtils.convert;
 
@@ -44,20 +47,139 @@ public class ZkComponents {
     return (T) result;
   }
 
-  protected final static Map<Class, Class<? extends HtmlBasedComponent>> EDITORS;
+  /**
+   * Factories of editors by types of values
+   */
+  private static final Map<Class<?>, EditorFactory<?>> EDITOR_FACTORIES = new ConcurrentHashMap<>();
+
+  static {
+    registerEditorFactory(String.class, new EditorFactory<>(Textbox::new));
+    registerEditorFactory(Date.class, new EditorFactory<>(Datebox::new));
+    EditorFactory<Checkbox> checkboxFactory = new EditorFactory<>(Checkbox::new);
+    registerEditorFactory(Boolean.class, checkboxFactory);
+    registerEditorFactory(Boolean.TYPE, checkboxFactory);
+    registerEditorFactory(BigDecimal.class, new EditorFactory<>(Decimalbox::new).setFormat("##0.00"));
+    registerEditorFactory(Double.class, new EditorFactory<>(Doublebox::new).setFormat("##0.00"));
+    EditorFactory<Intbox> intboxFactory = new EditorFactory<>(Intbox::new);
+    registerEditorFactory(Integer.class, intboxFactory);
+    registerEditorFactory(Integer.TYPE, intboxFactory);
+    EditorFactory<Longbox> longboxFactory = new EditorFactory<>(Longbox::new);
+    registerEditorFactory(Long.class, longboxFactory);
+    registerEditorFactory(Long.TYPE, longboxFactory);
+  }
+
+  /**
+   * Registers factory of editors for values of specified type. Replaces previous factory of the type.
+   *
+   * @param valueType type of values
+   * @param factory   factory of editors
+   */
+  public static void registerEditorFactory(Class<?> valueType, EditorFactory<?> factory) {
+    EDITOR_FACTORIES.put(valueType, factory);
+  }
+
+  /**
+   * @param valueType type of values
+   * @return factory of editors for values of specified type or {@code null}, if there is no factory
+   */
+  public static EditorFactory<?> getEditorFactory(Class<?> valueType) {
+    return EDITOR_FACTORIES.get(valueType);
+  }
+
+  /**
+   * Adapters of editors by classes of editors
+   */
+  private static final Map<Class<?>, EditorAdapter<?>> EDITOR_ADAPTERS = new ConcurrentHashMap<>();
+
+  /**
+   * Adapters resolved for concrete classes of editors. Classes without adapter are mapped to {@link #NO_ADAPTER}.
+   */
+  private static final Map<Class<?>, EditorAdapter<?>> RESOLVED_ADAPTERS = new ConcurrentHashMap<>();
+
+  private static final EditorAdapter<Component> NO_ADAPTER = EditorAdapter.of(editor -> null, null, null);
 
   static {
-    EDITORS = new HashMap<>();
-    EDITORS.put(String.class, Textbox.class);
-    EDITORS.put(Date.class, Datebox.class);
-    EDITORS.put(Boolean.class, Checkbox.class);
-    EDITORS.put(Boolean.TYPE, Checkbox.class);
-    EDITORS.put(BigDecimal.class, Decimalbox.class);
-    EDITORS.put(Double.class, Doublebox.class);
-    EDITORS.put(java.lang.Integer.class, Intbox.class);
-    EDITORS.put(Integer.TYPE, Intbox.class);
-    EDITORS.put(Long.class, Longbox.class);
-    EDITORS.put(Long.TYPE, Longbox.class);
+    registerEditorAdapter(InputElement.class, EditorAdapter.of(InputElement::getRawValue, null, Events.ON_CHANGE));
+    registerEditorAdapter(Textbox.class, EditorAdapter.of(Textbox::getRawValue,
+        (editor, value) -> editor.setValue(convert(String.class, value)), Events.ON_CHANGE));
+    registerEditorAdapter(Combobox.class, EditorAdapter.of(editor -> {
+      int selectedIndex = editor.getSelectedIndex();
+      return selectedIndex >= 0 ? editor.getModel().getElementAt(selectedIndex) : null;
+    }, (editor, value) -> editor.setValue(convert(String.class, value)), Events.ON_SELECT));
+    registerEditorAdapter(AutocompleteCombo.class, EditorAdapter.of(AutocompleteCombo::getSelectedObject,
+        AutocompleteCombo::setSelectedObject, Events.ON_CHANGE));
+    registerEditorAdapter(Datebox.class, EditorAdapter.of(Datebox::getRawValue,
+        (editor, value) -> editor.setValue(convert(Date.class, value)), Events.ON_CHANGE));
+    registerEditorAdapter(Decimalbox.class, EditorAdapter.of(Decimalbox::getRawValue,
+        (editor, value) -> editor.setValue(convert(BigDecimal.class, value)), Events.ON_CHANGE));
+    registerEditorAdapter(Doublebox.class, EditorAdapter.of(Doublebox::getRawValue,
+        (editor, value) -> editor.setValue(convert(Double.class, value)), Events.ON_CHANGE));
+    registerEditorAdapter(Intbox.class, EditorAdapter.of(Intbox::getRawValue,
+        (editor, value) -> editor.setValue(convert(Integer.class, value)), Events.ON_CHANGE));
+    registerEditorAdapter(Longbox.class, EditorAdapter.of(Longbox::getRawValue,
+        (editor, value) -> editor.setValue(convert(Long.class, value)), Events.ON_CHANGE));
+    registerEditorAdapter(Checkbox.class, EditorAdapter.of(Checkbox::isChecked,
+        (editor, value) -> editor.setChecked(convert(Boolean.TYPE, value)), Events.ON_CHECK));
+    registerEditorAdapter(Listbox.class, EditorAdapter.of(editor -> {
+      if (editor.getModel() == null) {
+        //список без модели: значения хранятся в самих строках
+        Listitem item = editor.getSelectedItem();
+        return item != null ? item.getValue() : null;
+      }
+      int selectedIndex = editor.getSelectedIndex();
+      return selectedIndex >= 0 ? editor.getModel().getElementAt(selectedIndex) : null;
+    }, (editor, value) -> setValueToListbox(editor, value, null), Events.ON_SELECT));
+    registerEditorAdapter(Selectbox.class, EditorAdapter.of(editor -> {
+      int selectedIndex = editor.getSelectedIndex();
+      return selectedIndex >= 0 ? editor.getModel().getElementAt(selectedIndex) : null;
+    }, null, Events.ON_SELECT));
+    registerEditorAdapter(Label.class, EditorAdapter.of(Label::getValue,
+        (editor, value) -> editor.setValue(convert(String.class, value)), null));
+    registerEditorAdapter(Radiogroup.class, EditorAdapter.of(ZkComponents::getValueFromRadiogroup,
+        null, Events.ON_CHECK));
+    registerEditorAdapter(CKeditor.class, EditorAdapter.of(CKeditor::getValue,
+        (editor, value) -> editor.setValue(convert(String.class, value)), Events.ON_CHANGE));
+  }
+
+  /**
+   * Registers adapter of editors of specified class and its subclasses, which have no own adapter.
+   * Could be called at runtime, e.g. for custom or third-party editors.
+   *
+   * @param editorClass class of editor
+   * @param adapter     adapter
+   * @param <C>         class of editor
+   */
+  public static <C extends Component> void registerEditorAdapter(Class<C> editorClass, EditorAdapter<? super C> adapter) {
+    //под той же блокировкой, что и разрешение адаптера, иначе в кэш может попасть прежний адаптер
+    synchronized (EDITOR_ADAPTERS) {
+      EDITOR_ADAPTERS.put(editorClass, adapter);
+      RESOLVED_ADAPTERS.clear();
+    }
+  }
+
+  /**
+   * Returns adapter of editor class: adapter registered for the class or for the closest superclass.
+   * Result is cached for every class, so lookup is done once.
+   *
+   * @param editorClass class of editor
+   * @return adapter or {@code null}, if class has no adapter
+   */
+  public static EditorAdapter<Component> getEditorAdapter(Class<?> editorClass) {
+    EditorAdapter<?> adapter = RESOLVED_ADAPTERS.get(editorClass);
+    if (adapter == null) {
+      synchronized (EDITOR_ADAPTERS) {
+        adapter = NO_ADAPTER;
+        for (Class<?> current = editorClass; current != null; current = current.getSuperclass()) {
+          EditorAdapter<?> registered = EDITOR_ADAPTERS.get(current);
+          if (registered != null) {
+            adapter = registered;
+            break;
+          }
+        }
+        RESOLVED_ADAPTERS.put(editorClass, adapter);
+      }
+    }
+    return adapter != NO_ADAPTER ? (EditorAdapter<Component>) adapter : null;
   }
 
   /**
@@ -67,39 +189,11 @@ public class ZkComponents {
    * @return editor's value
    */
   public static Object getValueFromEditor(Component editor) {
-    Object value;
-    if (editor instanceof Combobox) {
-      Combobox combobox = (Combobox) editor;
-      int selectedIndex = combobox.getSelectedIndex();
-      value = selectedIndex >= 0
-          ? combobox.getModel().getElementAt(selectedIndex)
-          : null;
-    } else if (editor instanceof InputElement) {
-      value = ((InputElement) editor).getRawValue();
-    } else if (editor instanceof Checkbox) {
-      value = ((Checkbox) editor).isChecked();
-    } else if (editor instanceof Listbox) {
-      Listbox listbox = (Listbox) editor;
-      int selectedIndex = listbox.getSelectedIndex();
-      value = selectedIndex >= 0
-          ? listbox.getModel().getElementAt(selectedIndex)
-          : null;
-    } else if (editor instanceof Selectbox) {
-      Selectbox selectbox = (Selectbox) editor;
-      int selectedIndex = selectbox.getSelectedIndex();
-      value = selectedIndex >= 0
-          ? selectbox.getModel().getElementAt(selectedIndex)
-          : null;
-    } else if (editor instanceof Label) {
-      value = ((Label) editor).getValue();
-    } else if (editor instanceof Radiogroup) {
-      value = getValueFromRadiogroup((Radiogroup) editor);
-    } else if (editor instanceof CKeditor) {
-      value = ((CKeditor) editor).getValue();
-    } else {
+    EditorAdapter<Component> adapter = getEditorAdapter(editor.getClass());
+    if (adapter == null) {
       throw new IllegalArgumentException(String.format("Unregistered type of editor %s", editor.getClass().getName()));
     }
-    return value;
+    return adapter.getValue(editor);
   }
 
   /**
@@ -155,31 +249,35 @@ public class ZkComponents {
    * @throws IllegalArgumentException if value is not found
    */
   public static boolean setValueToListboxSilent(Listbox editor, Object value, Comparator comparator) throws IllegalArgumentException {
-    //finding index of selected value
+    ListModel model = editor.getListModel();
+    int index;
     if (comparator == null) {
-      comparator = new NullSafeComparator<>(new Comparator<Object>() {
-
-        public int compare(Object o1, Object o2) {
-          return o1.equals(o2) ? 0 : 1;
-        }
-      }, true);
-    } else if (!(comparator instanceof NullSafeComparator)) {
-      comparator = new NullSafeComparator<>(comparator, true);
+      //по equals ищем через индекс модели
+      index = ListModelIndex.indexOf(editor, value);
+    } else {
+      if (!(comparator instanceof NullSafeComparator)) {
+        comparator = new NullSafeComparator<>(comparator, true);
+      }
+      index = indexInModel(model, value, comparator);
+    }
+    if (index < 0) {
+      return false;
     }
-    ListModel model = ((Listbox) editor).getListModel();
-    int index = -1;
+    if (model instanceof Selectable) {
+      ((Selectable) model).setSelection(Collections.singleton(model.getElementAt(index)));
+    } else {
+      editor.setSelectedIndex(index);
+    }
+    return true;
+  }
+
+  private static int indexInModel(ListModel model, Object value, Comparator comparator) {
     for (int i = 0, max = model.getSize(); i < max; i++) {
-      Object listValue = model.getElementAt(i);
-      if (comparator.compare(value, listValue) == 0) {
-        if (model instanceof Selectable) {
-          ((Selectable) model).setSelection(Collections.singleton(listValue));
-        } else {
-          editor.setSelectedIndex(index);
-        }
-        return true;
+      if (comparator.compare(value, model.getElementAt(i)) == 0) {
+        return i;
       }
     }
-    return false;
+    return -1;
   }
 
   /**
@@ -190,34 +288,16 @@ public class ZkComponents {
    * @throws IllegalArgumentException unknown type of editors
    */
   public static void setValueToEditor(Component editor, Object value) throws IllegalArgumentException {
-    if (editor instanceof Datebox) {
-      ((Datebox) editor).setValue(convert(Date.class, value));
-    } else if (editor instanceof Textbox) {
-      ((Textbox) editor).setValue(convert(String.class, value));
-    } else if (editor instanceof Checkbox) {
-      ((Checkbox) editor).setChecked(convert(Boolean.TYPE, value));
-    } else if (editor instanceof Decimalbox) {
-      ((Decimalbox) editor).setValue(convert(BigDecimal.class, value));
-    } else if (editor instanceof Doublebox) {
-      ((Doublebox) editor).setValue(convert(Double.class, value));
-    } else if (editor instanceof Intbox) {
-      ((Intbox) editor).setValue(convert(Integer.class, value));
-    } else if (editor instanceof Longbox) {
-      ((Longbox) editor).setValue(convert(Long.class, value));
-    } else if (editor instanceof Label) {
-      ((Label) editor).setValue(convert(String.class, value));
-    } else if (editor instanceof CKeditor) {
-      ((CKeditor) editor).setValue(convert(String.class, value));
-    } else if (editor instanceof Listbox) {
-      setValueToListbox((Listbox) editor, value, null);
-    } else {
+    EditorAdapter<Component> adapter = getEditorAdapter(editor.getClass());
+    if (adapter == null) {
       throw new IllegalArgumentException(String.format("Unregistered class of editor %s", editor.getClass().getName()));
     }
+    adapter.setValue(editor, value);
   }
 
 
   /**
-   * Creates default editor for class
+   * Creates default editor for class by registered {@link EditorFactory}
    *
    * @param cl           class
    * @param <T>          class
@@ -225,18 +305,11 @@ public class ZkComponents {
    * @return editor
    */
   public static <T> HtmlBasedComponent createEditor(Class<T> cl, T initialValue) {
-    HtmlBasedComponent result;
-    try {
-      result = EDITORS.get(cl).newInstance();
-    } catch (Exception ex) {
+    EditorFactory<?> factory = EDITOR_FACTORIES.get(cl);
+    if (factory == null) {
       throw new IllegalArgumentException(String.format("Can't create editor for class %s", cl.getName()));
     }
-    result.applyProperties();
-    if (result instanceof Decimalbox) {
-      ((Decimalbox) result).setFormat("##0.00");
-    } else if (result instanceof Doublebox) {
-      ((Doublebox) result).setFormat("##0.00");
-    }
+    HtmlBasedComponent result = factory.create();
 
     //setting initial value
     if (initialValue != null) {
@@ -309,7 +382,10 @@ public class ZkComponents {
     if (!StringUtils.isEmpty(propertyName)) {
       new InlineEditorBinder(editor, propertyName);
     }
-    editor.setWidth("100%");
+    if (editor.getWidth() == null) {
+      //ширина фабрики редакторов важнее ширины по умолчанию
+      editor.setWidth("100%");
+    }
     if (parent != null) {
       parent.appendChild(editor);
     }
@@ -371,14 +447,7 @@ public class ZkComponents {
     }
 
     if (initialValue != null) {
-      int selectedIndex = -1;
-      for (int i = 0, max = model.getSize(); i < max; i++) {
-        if (initialValue.equals(model.getElementAt(i))) {
-          selectedIndex = i;
-          break;
-        }
-      }
-      listbox.setSelectedIndex(selectedIndex);
+      listbox.setSelectedIndex(ListModelIndex.indexOf(listbox, initialValue));
     }
 
     if (parent != null) {
@@ -400,12 +469,8 @@ public class ZkComponents {
    * @return искомый элемент в модели, либо {@code null}
    */
   public static Object findInModel(ListModel model, Object searchValue, Comparator comparator) {
-    for (int i = 0, max = model.getSize(); i < max; i++) {
-      if (comparator.compare(searchValue, model.getElementAt(i)) == 0) {
-        return model.getElementAt(i);
-      }
-    }
-    return null;
+    int index = indexInModel(model, searchValue, comparator);
+    return index >= 0 ? model.getElementAt(index) : null;
   }
 
   /**
@@ -1,20 +1,20 @@
 package com.mira.zk.binding;
 
+import com.mira.zk.EditorAdapter;
 import com.mira.zk.ZkComponents;
 import org.zkoss.zk.ui.Component;
-import org.zkoss.zk.ui.event.CheckEvent;
 import org.zkoss.zk.ui.event.Event;
 import org.zkoss.zk.ui.event.EventListener;
-import org.zkoss.zk.ui.event.Events;
-import org.zkoss.zul.*;
+import org.zkoss.zul.Listbox;
+import org.zkoss.zul.Listitem;
 
 /**
  * Класс для настройки биндинга между объектом строки некоторого списка {@link Listbox}
  * и компонентом для редактирования свойства этого элемента, находящегося в одной
  * из ячеек этой строки.
- * При создании биндер добавляет слушателя на события {@code Events.ON_CHANGE} переданного
- * контрола. При изменении значения в контроле, слушатель проходит по родителям
- * этого контрола до тех пока не найдёт компонент {@link Listitem}, который отвечает
+ * При создании биндер добавляет слушателя на событие изменения переданного
+ * контрола, которое определяет его {@link EditorAdapter}. При изменении значения
+ * в контроле, слушатель проходит по родителям этого контрола до тех пока не найдёт компонент {@link Listitem}, который отвечает
  * за строку списка, и получает объект через метод {@code getValue}. Именно у этого
  * объекта и будет меняться связанное свойство. <br>
  * Таким образом для корректной работы биндера должны быть выполнены следующие
@@ -32,37 +32,9 @@ public class InlineEditorBinder extends AbstractBinder {
 
   private Component component;
 
-  private AbstactEditorListener getEventListener(Class<? extends Component> cl) {
-    if (Datebox.class.isAssignableFrom(cl)) {
-      return new DateboxListener();
-    } else if (Textbox.class.isAssignableFrom(cl)) {
-      return new TextboxListener();
-    } else if (Doublebox.class.isAssignableFrom(cl)) {
-      return new DoubleboxListener();
-    } else if (Decimalbox.class.isAssignableFrom(cl)) {
-      return new DecimalboxListener();
-    } else if (Intbox.class.isAssignableFrom(cl)) {
-      return new IntboxListener();
-    } else if (Checkbox.class.isAssignableFrom(cl)) {
-      return new CheckboxListener();
-    } else if (Listbox.class.isAssignableFrom(cl)) {
-      return new ListboxListener();
-    }
-
-    return null;
-  }
-
-  protected String getEvent(Class<? extends Component> cl) {
-    if (cl.isAssignableFrom(Checkbox.class)) {
-      return Events.ON_CHECK;
-    } else if (cl.isAssignableFrom(Listbox.class)) {
-      return Events.ON_SELECT;
-    }
-    return Events.ON_CHANGE;
-  }
-
   /**
-   * Создаёт экземпляр биндера и насранивает компонент ввода.
+   * Создаёт экземпляр биндера и насранивает компонент ввода. Значение компонента и событие его изменения
+   * определяются адаптером, зарегистрированным в {@link ZkComponents#registerEditorAdapter}.
    *
    * @param component    компонент ввода, отвечающий за свойство
    * @param propertyName пусть к свойству объекта.
@@ -70,13 +42,15 @@ public class InlineEditorBinder extends AbstractBinder {
   public InlineEditorBinder(Component component, String propertyName) {
     super(propertyName);
     this.component = component;
-    AbstactEditorListener listener = getEventListener(component.getClass());
-    if (listener == null) {
+    final EditorAdapter<Component> adapter = ZkComponents.getEditorAdapter(component.getClass());
+    if (adapter == null || adapter.getEventName() == null) {
       throw new BindingException(String.format("Component %s is not supported by binder %s", component.getClass().getName(), getClass().getName()));
     }
-    String event = getEvent(component.getClass());
-    listener.setBinder(this);
-    component.addEventListener(event, listener);
+    component.addEventListener(adapter.getEventName(), new EventListener<Event>() {
+      public void onEvent(Event event) throws Exception {
+        setValue(adapter.getValue(event.getTarget()));
+      }
+    });
   }
 
   @Override
@@ -84,106 +58,4 @@ public class InlineEditorBinder extends AbstractBinder {
     Listitem item = ZkComponents.findAncestor(component, Listitem.class);
     return item != null ? item.getValue() : null;
   }
-
-  /**
-   * Абстрактный слушатель. Получает событие и передаёт его абстрактному методу
-   * {@link #getValue(org.zkoss.zk.ui.event.Event) }, чтобы получить из события
-   * объект. Далее полученный объект передаётся биндеру, чтобы тот проставил
-   * его свойству целевого объекта.
-   */
-  private abstract class AbstactEditorListener implements EventListener {
-
-    private InlineEditorBinder binder;
-
-    public AbstactEditorListener() {
-    }
-
-    public void setBinder(InlineEditorBinder binder) {
-      this.binder = binder;
-    }
-
-    protected abstract Object getValue(Event event);
-
-    public void onEvent(Event event) throws java.lang.Exception {
-      binder.setValue(getValue(event));
-    }
-  }
-
-  private class IntboxListener extends AbstactEditorListener {
-
-    public IntboxListener() {
-    }
-
-    @Override
-    protected Object getValue(Event event) {
-      return ((Intbox) event.getTarget()).getValue();
-    }
-  }
-
-  private class TextboxListener extends AbstactEditorListener {
-
-    public TextboxListener() {
-    }
-
-    @Override
-    protected Object getValue(Event event) {
-      return ((Textbox) event.getTarget()).getValue();
-    }
-  }
-
-  private class DoubleboxListener extends AbstactEditorListener {
-
-    public DoubleboxListener() {
-    }
-
-    @Override
-    protected Object getValue(Event event) {
-      return ((Doublebox) event.getTarget()).getValue();
-    }
-  }
-
-  private class DecimalboxListener extends AbstactEditorListener {
-
-    public DecimalboxListener() {
-    }
-
-    @Override
-    protected Object getValue(Event event) {
-      return ((Decimalbox) event.getTarget()).getValue();
-    }
-  }
-
-  private class DateboxListener extends AbstactEditorListener {
-
-    public DateboxListener() {
-    }
-
-    @Override
-    protected Object getValue(Event event) {
-      return ((Datebox) event.getTarget()).getValue();
-    }
-  }
-
-  private class CheckboxListener extends AbstactEditorListener {
-
-    public CheckboxListener() {
-    }
-
-    @Override
-    protected Object getValue(Event event) {
-      return ((CheckEvent) event).isChecked();
-    }
-  }
-
-  private class ListboxListener extends AbstactEditorListener {
-
-    public ListboxListener() {
-    }
-
-    @Override
-    protected Object getValue(Event event) {
-      Listitem item = ((Listbox) event.getTarget()).getSelectedItem();
-      return item == null ? null : item.getValue();
-    }
-  }
 }
@@ -0,0 +1,139 @@
+package com.mira.zk.components;
+
+import com.mira.utils.StringUtils;
+import org.zkoss.zk.ui.event.EventListener;
+import org.zkoss.zk.ui.event.Events;
+import org.zkoss.zk.ui.event.InputEvent;
+import org.zkoss.zul.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Combobox для выбора значения из очень большого списка, например контрагентов. Полный список значений
+ * не загружается: по мере ввода текста у {@link LookupProvider} запрашиваются первые подходящие значения,
+ * и только они попадают в выпадающий список.
+ *
+ * @param <T> класс значений
+ */
+public class AutocompleteCombo<T> extends Combobox {
+  public static final int DEFAULT_MAX_RESULTS = 20;
+
+  private LookupProvider<T> provider;
+  private int maxResults = DEFAULT_MAX_RESULTS;
+  private T selectedObject;
+
+  /**
+   * Создание компонента без источника значений
+   */
+  public AutocompleteCombo() {
+    this(null);
+  }
+
+  /**
+   * Строит компонент
+   *
+   * @param provider источник значений
+   */
+  public AutocompleteCombo(LookupProvider<T> provider) {
+    this.provider = provider;
+    setAutodrop(true);
+    setButtonVisible(false);
+    setItemRenderer((ComboitemRenderer<T>) (item, data, index) -> {
+      item.setLabel(getCaption(data));
+      item.setValue(data);
+    });
+    setModel(new ListModelList<T>());
+    addEventListener(Events.ON_CHANGING, (EventListener<InputEvent>) event -> suggest(event.getValue()));
+    addEventListener(Events.ON_SELECT, event -> {
+      Comboitem item = getSelectedItem();
+      if (item != null) {
+        selectedObject = item.getValue();
+      }
+    });
+  }
+
+  /**
+   * Заполняет выпадающий список значениями, подходящими под введённый текст.
+   *
+   * @param text введённый текст
+   */
+  protected void suggest(String text) {
+    List<T> found = provider != null && StringUtils.isNotEmpty(text) ? provider.find(text, maxResults)
+        : Collections.<T>emptyList();
+    setModel(new ListModelList<T>(found));
+  }
+
+  /**
+   * @return источник значений
+   */
+  public LookupProvider<T> getProvider() {
+    return provider;
+  }
+
+  /**
+   * Устанавливает источник значений. Выбранное значение сбрасывается.
+   *
+   * @param provider источник значений
+   * @return себя же для последовательного вызова
+   */
+  public AutocompleteCombo<T> setProvider(LookupProvider<T> provider) {
+    this.provider = provider;
+    setSelectedObject(null);
+    return this;
+  }
+
+  /**
+   * @return максимальное количество значений в выпадающем списке
+   */
+  public int getMaxResults() {
+    return maxResults;
+  }
+
+  /**
+   * Устанавливает максимальное количество значений в выпадающем списке
+   *
+   * @param maxResults количество значений
+   * @return себя же для последовательного вызова
+   */
+  public AutocompleteCombo<T> setMaxResults(int maxResults) {
+    this.maxResults = maxResults;
+    return this;
+  }
+
+  /**
+   * Возвращает выбранное значение. Если пользователь изменил текст после выбора и он не совпадает
+   * с названием значения, то значение считается не выбранным.
+   *
+   * @return выбранное значение или {@code null}
+   */
+  public T getSelectedObject() {
+    Comboitem item = getSelectedItem();
+    if (item != null) {
+      return item.getValue();
+    }
+    if (selectedObject != null && Objects.equals(getCaption(selectedObject), getText())) {
+      return selectedObject;
+    }
+    return null;
+  }
+
+  /**
+   * Выбирает значение. Выпадающий список содержит только это значение, пока пользователь не начнёт вводить текст.
+   *
+   * @param value значение. Может быть {@code null}.
+   * @return себя же для последовательного вызова
+   */
+  public AutocompleteCombo<T> setSelectedObject(T value) {
+    selectedObject = value;
+    setModel(new ListModelList<T>(value != null ? Collections.singletonList(value) : Collections.<T>emptyList()));
+    setText(value != null ? getCaption(value) : "");
+    return this;
+  }
+
+  private String getCaption(T value) {
+    String caption = provider != null ? provider.getCaption(value) : String.valueOf(value);
+    return caption != null ? caption : ""; //текст combobox не бывает null
+  }
+}
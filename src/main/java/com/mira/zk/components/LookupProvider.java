@@ -0,0 +1,33 @@
+package com.mira.zk.components;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Источник значений для {@link AutocompleteCombo}. Значения ищутся по введённому тексту,
+ * поэтому полный список значений никогда не передаётся в компонент.
+ *
+ * @param <T> класс значений
+ */
+public interface LookupProvider<T> extends Serializable {
+
+  /**
+   * Ищет значения, название которых подходит под введённый текст.
+   *
+   * @param text  введённый пользователем текст. Не пустой.
+   * @param limit максимальное количество значений
+   * @return найденные значения, не больше {@code limit}
+   */
+  List<T> find(String text, int limit);
+
+  /**
+   * Возвращает название значения для пользователя.
+   *
+   * @param value значение. Не {@code null}.
+   * @return название значения
+   */
+  default String getCaption(T value) {
+    return Objects.toString(value);
+  }
+}
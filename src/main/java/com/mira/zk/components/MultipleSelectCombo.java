@@ -1,6 +1,7 @@
 package com.mira.zk.components;
 
 import com.mira.utils.StringUtils;
+import com.mira.zk.SharedListModel;
 import org.zkoss.zk.ui.annotation.ComponentAnnotation;
 import org.zkoss.zk.ui.event.Events;
 import org.zkoss.zul.*;
@@ -77,20 +78,31 @@ public class MultipleSelectCombo<T> extends Bandbox {
       item.appendChild(new Listcell(MultipleSelectCombo.this.converter.apply(data)));
       item.setValue(data);
     });
-    ListModelList<T> model = new ListModelList<T>(availableObjects);
-    model.setMultiple(true);
-    listbox.setModel(model);
+    listbox.setModel(createModel(availableObjects));
     listbox.addEventListener(Events.ON_SELECT, event -> onSelect());
     bandpopup.appendChild(listbox);
 
     refreshTitle();
   }
 
+  /**
+   * Создаёт модель вложенного listbox. Список доступных объектов не копируется для каждого компонента,
+   * а разделяется между всеми компонентами с таким же списком. Компонент хранит только свой выбор.
+   *
+   * @param availableObjects список доступных объектов
+   * @return модель с множественным выбором
+   */
+  private SharedListModel<T> createModel(List<T> availableObjects) {
+    SharedListModel<T> model = SharedListModel.of(availableObjects);
+    model.setMultiple(true);
+    return model;
+  }
+
   /**
    * @return модель вложенного listbox
    */
-  private ListModelList<T> getModel() {
-    return (ListModelList<T>) listbox.<T>getModel();
+  private SharedListModel<T> getModel() {
+    return (SharedListModel<T>) listbox.<T>getModel();
   }
 
   /**
@@ -99,8 +111,8 @@ public class MultipleSelectCombo<T> extends Bandbox {
    * @param select {@code true} - выбрать все, иначе - снять
    */
   public void selectAll(boolean select) {
-    ListModelList<T> model = getModel();
-    model.setSelection(select ? model.getInnerList() : Collections.emptyList());
+    SharedListModel<T> model = getModel();
+    model.setSelection(select ? model.getList() : Collections.emptyList());
     onSelect();
   }
 
@@ -141,9 +153,7 @@ public class MultipleSelectCombo<T> extends Bandbox {
    * @return себя же для последовательного вызова
    */
   public MultipleSelectCombo<T> setAvailableObjects(List<T> availableObjects) {
-    ListModelList<T> model = new ListModelList<>(availableObjects);
-    model.setMultiple(true);
-    listbox.setModel(model);
+    listbox.setModel(createModel(availableObjects));
     setSelectedObjects(selected != null ? selected : Collections.emptySet());
     return this;
   }
@@ -158,12 +168,12 @@ public class MultipleSelectCombo<T> extends Bandbox {
    * @return себя же для последовательного вызова
    */
   public MultipleSelectCombo<T> setSelectedObjects(Set<T> selected) {
-    ListModelList<T> model = getModel();
-    if (model.isEmpty()) {   //Если модель пока ещё не инициализирована, то сохраним выбор для последующей инициализации
+    SharedListModel<T> model = getModel();
+    if (model.getSize() == 0) {   //Если модель пока ещё не инициализирована, то сохраним выбор для последующей инициализации
       this.selected = selected;
     } else { //Иначе выберем в модели указанные элементы
       this.selected = null;
-      model.setSelection(model.getInnerList().stream().filter(selected::contains).collect(Collectors.toSet()));
+      model.setSelection(model.getList().stream().filter(selected::contains).collect(Collectors.toSet()));
     }
     refreshTitle();
     return this;
@@ -174,10 +184,10 @@ public class MultipleSelectCombo<T> extends Bandbox {
    */
   @ComponentAnnotation("@ZKBIND(ACCESS=both, SAVE_EVENT=" + SELECT_EVENT + ")")
   public Set<T> getSelectedObjects() {
-    ListModelList<T> model = getModel();
+    SharedListModel<T> model = getModel();
     Set<T> selection = new HashSet<>(model.getSelection());
     if (selection.isEmpty() && selectAllIfEmpty) {
-      selection.addAll(model.getInnerList());
+      selection.addAll(model.getList());
     }
     return selection;
   }
@@ -186,10 +196,10 @@ public class MultipleSelectCombo<T> extends Bandbox {
    * Обновляет заголовок
    */
   private void refreshTitle() {
-    ListModelList<T> model = getModel();
+    SharedListModel<T> model = getModel();
     Set<T> selection = model.getSelection();
     //Найдём список выбранных элементов в том порядке, в котороым они указаны в модели
-    String title = model.getInnerList().stream().filter(selection::contains).map(converter).collect(Collectors.joining(","));
+    String title = model.getList().stream().filter(selection::contains).map(converter).collect(Collectors.joining(","));
     //Если получился пустой текст, то выведем указанный текст для пустого выбора
     if (StringUtils.isEmpty(title)) {
       title = StringUtils.isNotEmpty(emptyTitle) ? emptyTitle : (selectAllIfEmpty ? "Все" : "");
@@ -0,0 +1,85 @@
+package com.mira.zk.components;
+
+import com.mira.zk.PrefixSearch;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Источник значений в памяти. Названия значений один раз сортируются, после чего значения с названием,
+ * начинающимся на введённый текст, находятся двоичным поиском. Регистр не учитывается.
+ *
+ * @param <T> класс значений
+ */
+public class PrefixLookupProvider<T> implements LookupProvider<T> {
+  private static final long serialVersionUID = 1L;
+
+  private final Map<T, String> captions;
+  private final String[] texts;
+  private final Object[] values;
+
+  /**
+   * Строит индекс значений
+   *
+   * @param captions названия значений по значениям, например {@link com.mira.zk.lists.FieldInfo#getValues()}
+   */
+  public PrefixLookupProvider(Map<T, String> captions) {
+    this.captions = captions;
+    List<Map.Entry<T, String>> entries = new ArrayList<>(captions.entrySet());
+    String[] normalized = new String[entries.size()];
+    Integer[] order = new Integer[entries.size()];
+    for (int i = 0; i < normalized.length; i++) {
+      normalized[i] = PrefixSearch.normalize(entries.get(i).getValue());
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparing(i -> normalized[i]));
+    texts = new String[order.length];
+    values = new Object[order.length];
+    for (int i = 0; i < order.length; i++) {
+      texts[i] = normalized[order[i]];
+      values[i] = entries.get(order[i]).getKey();
+    }
+  }
+
+  /**
+   * Строит индекс значений
+   *
+   * @param values    значения
+   * @param converter функция перевода значения в название
+   * @param <T>       класс значений
+   * @return источник значений
+   */
+  public static <T> PrefixLookupProvider<T> of(Collection<T> values, Function<T, String> converter) {
+    Map<T, String> captions = new LinkedHashMap<>();
+    for (T value : values) {
+      captions.put(value, converter.apply(value));
+    }
+    return new PrefixLookupProvider<>(captions);
+  }
+
+  @Override
+  public List<T> find(String text, int limit) {
+    String prefix = PrefixSearch.normalize(text);
+    List<T> result = new ArrayList<>(Math.min(limit, 32));
+    if (prefix.isEmpty()) {
+      return result;
+    }
+    for (int i = PrefixSearch.lowerBound(texts, prefix); i < texts.length && result.size() < limit && texts[i].startsWith(prefix); i++) {
+      result.add((T) values[i]);
+    }
+    return result;
+  }
+
+  @Override
+  public String getCaption(T value) {
+    String caption = captions.get(value);
+    return caption != null ? caption : Objects.toString(value);
+  }
+
+  /**
+   * @return количество значений
+   */
+  public int size() {
+    return texts.length;
+  }
+}
@@ -0,0 +1,681 @@
+package com.mira.zk.lists;
+
+import com.mira.utils.ClassUtils;
+import org.zkoss.zul.ListModelList;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * List model for big read-only listings. Model doesn't keep objects themselves, only values of projected
+ * columns in columnar form: numbers, dates and booleans are kept in primitive arrays, all other values
+ * (strings first of all) are kept in deduplicated dictionaries. Elements of the model are lightweight
+ * {@link Row}s, the object itself is materialized by its key only when it's really needed, e.g. on selection.
+ * <p>
+ * Objects (not rows) could be passed to {@code add} and {@code set} methods, they are projected to columns
+ * in place.
+ *
+ * @param <T> object class
+ */
+public class ColumnarListModel<T> extends ListModelList<Object> {
+    private final Store<T> store;
+
+    /**
+     * Creates model and projects specified objects.
+     *
+     * @param objectClass  class of objects
+     * @param columns      projected columns
+     * @param keyExtractor function which returns compact key of object, e.g. id. Object itself can't be its key,
+     *                     otherwise the model would keep all objects
+     * @param loader       function which loads object by its key
+     * @param objects      initial objects
+     * @throws IllegalArgumentException if key extractor returns object itself
+     */
+    public ColumnarListModel(Class<? extends T> objectClass, List<ColumnInfo> columns,
+                             Function<T, Object> keyExtractor, Function<Object, T> loader,
+                             Collection<T> objects) {
+        super(new Store<T>(objectClass, columns, keyExtractor, loader, objects), true);
+        this.store = (Store<T>) getInnerList();
+    }
+
+    /**
+     * @param index index of row
+     * @return key of object in specified row
+     */
+    public Object getKey(int index) {
+        return store.get(index).getKey();
+    }
+
+    /**
+     * Finds row of object with specified key.
+     *
+     * @param key key of object
+     * @return index of row or -1, if nothing is found
+     */
+    public int indexOfKey(Object key) {
+        return store.indexOfKey(key);
+    }
+
+    /**
+     * Loads object of specified row.
+     *
+     * @param row row of the model
+     * @return object
+     */
+    public T materialize(Row row) {
+        return store.loader.apply(row.getKey());
+    }
+
+    /**
+     * Model keeps functions of presenter, so it isn't serialized. Empty model is written instead,
+     * objects are reloaded by {@link ZkListFormBuilder} from its compact state after deserialization
+     * in any mode of replication.
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        return new ListModelList<Object>();
+    }
+
+    /**
+     * Row of columnar model. Row is a pointer to the values of object with its key in the model, it stays valid
+     * when other rows are inserted or removed (e.g. in items of listbox which are not rendered again).
+     */
+    public static final class Row implements Serializable {
+        private final Store<?> store;
+        private final Object key;
+        /**
+         * Last known position of the row, is checked by key before use
+         */
+        private int index;
+
+        private Row(Store<?> store, int index, Object key) {
+            this.store = store;
+            this.index = index;
+            this.key = key;
+        }
+
+        /**
+         * @return key of object
+         */
+        public Object getKey() {
+            return key;
+        }
+
+        /**
+         * @param column index of column
+         * @return value of the column in this row or {@code null}, if row is removed from the model
+         */
+        public Object getValue(int column) {
+            if (index < 0 || index >= store.size || !Objects.equals(store.keys[index], key)) {
+                //строки сдвинулись вставкой или удалением
+                index = store.indexOfKey(key);
+            }
+            return index >= 0 ? store.columns[column].get(index) : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Row && Objects.equals(key, ((Row) o).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key);
+        }
+    }
+
+    /**
+     * Columnar storage of rows. Is used as inner list of the model. Positions of keys are indexed, index is kept
+     * while rows are appended or removed from the end and is rebuilt on demand after other changes.
+     */
+    private static class Store<T> extends AbstractList<Object> implements RandomAccess, Serializable {
+        private final String[] paths;
+        private final Column[] columns;
+        private final Function<T, Object> keyExtractor;
+        private final Function<Object, T> loader;
+        private Object[] keys;
+        private int size;
+        private transient Map<Object, Integer> positions;
+
+        Store(Class<? extends T> objectClass, List<ColumnInfo> columnInfos, Function<T, Object> keyExtractor,
+              Function<Object, T> loader, Collection<T> objects) {
+            this.keyExtractor = keyExtractor;
+            this.loader = loader;
+            this.paths = new String[columnInfos.size()];
+            this.columns = new Column[columnInfos.size()];
+            for (int i = 0; i < columns.length; i++) {
+                paths[i] = columnInfos.get(i).getPath();
+                columns[i] = Column.create(ClassUtils.getType(objectClass, paths[i]));
+            }
+            keys = new Object[0];
+            ensureCapacity(objects.size());
+            for (T object : objects) {
+                write(size++, object);
+            }
+        }
+
+        @Override
+        public Row get(int index) {
+            checkIndex(index, size);
+            return new Row(this, index, keys[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void add(int index, Object element) {
+            checkIndex(index, size + 1);
+            ensureCapacity(size + 1);
+            if (index < size) {
+                positions = null;
+                move(index, index + 1, size - index);
+                reset(index);
+            }
+            size++;
+            write(index, element);
+            modCount++;
+        }
+
+        @Override
+        public Row set(int index, Object element) {
+            Row old = get(index);
+            write(index, element);
+            return old;
+        }
+
+        @Override
+        public Row remove(int index) {
+            Row old = get(index);
+            removeRange(index, index + 1);
+            return old;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            for (int i = fromIndex; i < toIndex; i++) {
+                if (positions != null) {
+                    positions.remove(keys[i], i);
+                }
+                for (Column column : columns) {
+                    column.clear(i);
+                }
+            }
+            if (toIndex < size) {
+                positions = null;
+                move(toIndex, fromIndex, size - toIndex);
+            }
+            for (int i = size - (toIndex - fromIndex); i < size; i++) {
+                reset(i);
+            }
+            size -= toIndex - fromIndex;
+            modCount++;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if (o instanceof Row) {
+                return indexOfKey(((Row) o).key);
+            } else {
+                return o != null ? indexOfKey(keyExtractor.apply((T) o)) : -1;
+            }
+        }
+
+        int indexOfKey(Object key) {
+            if (positions == null) {
+                positions = new HashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    positions.putIfAbsent(keys[i], i);
+                }
+            }
+            Integer position = positions.get(key);
+            return position != null ? position : -1;
+        }
+
+        /**
+         * Writes key to the row and to the index of positions
+         */
+        private void writeKey(int index, Object key) {
+            Object old = keys[index];
+            keys[index] = key;
+            if (positions != null && !Objects.equals(old, key)) {
+                if (old != null && Integer.valueOf(index).equals(positions.get(old))) {
+                    //у одинаковых ключей другая строка могла бы потеряться, переиндексируем
+                    positions = null;
+                } else if (positions.putIfAbsent(key, index) != null) {
+                    positions = null;
+                }
+            }
+        }
+
+        /**
+         * Empties the row without releasing its values, after its values were moved to other row
+         */
+        private void reset(int index) {
+            keys[index] = null;
+            for (Column column : columns) {
+                column.reset(index);
+            }
+        }
+
+        /**
+         * Writes values of specified object or row to specified row of the store.
+         */
+        private void write(int index, Object element) {
+            if (element instanceof Row) {
+                Row row = (Row) element;
+                writeKey(index, row.key);
+                for (int i = 0; i < columns.length; i++) {
+                    setValue(i, index, row.getValue(i));
+                }
+            } else {
+                T object = (T) element;
+                Object key = keyExtractor.apply(object);
+                if (key == object) {
+                    throw new IllegalArgumentException(String.format(
+                            "Object %s is its own key, columnar model requires compact keys", object));
+                }
+                writeKey(index, key);
+                for (int i = 0; i < columns.length; i++) {
+                    setValue(i, index, ClassUtils.getValue(object, paths[i]));
+                }
+            }
+        }
+
+        /**
+         * Writes value to the column. If the column can't keep the value as is (e.g. {@link java.sql.Timestamp}
+         * in column of {@link Date}), then column is replaced by column which can.
+         */
+        private void setValue(int column, int index, Object value) {
+            Column current = columns[column];
+            if (!current.accepts(value)) {
+                Column replacement = current.isEmpty(size) ? Column.create(value.getClass()) : null;
+                if (replacement == null || !replacement.accepts(value)) {
+                    replacement = new DictionaryColumn();
+                }
+                replacement.resize(keys.length);
+                for (int i = 0; i < size; i++) {
+                    replacement.set(i, current.get(i));
+                }
+                columns[column] = replacement;
+                current = replacement;
+            }
+            current.set(index, value);
+        }
+
+        private void move(int from, int to, int length) {
+            if (length > 0) {
+                System.arraycopy(keys, from, keys, to, length);
+                for (Column column : columns) {
+                    column.move(from, to, length);
+                }
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > keys.length) {
+                capacity = Math.max(capacity, keys.length + (keys.length >> 1) + 1);
+                keys = Arrays.copyOf(keys, capacity);
+                for (Column column : columns) {
+                    column.resize(capacity);
+                }
+            }
+        }
+
+        private static void checkIndex(int index, int size) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", index, size));
+            }
+        }
+    }
+
+    /**
+     * Values of one column
+     */
+    private abstract static class Column implements Serializable {
+        abstract void resize(int capacity);
+
+        abstract Object get(int index);
+
+        abstract void set(int index, Object value);
+
+        /**
+         * Releases value of the row
+         */
+        abstract void clear(int index);
+
+        /**
+         * Empties the row without releasing its value. Is used for rows which values were moved to other rows.
+         */
+        void reset(int index) {
+            clear(index);
+        }
+
+        /**
+         * @param value value. Can be {@code null}
+         * @return can value be kept in the column without loss of its class or precision
+         */
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        /**
+         * @param size number of rows
+         * @return are all values of the column {@code null}
+         */
+        boolean isEmpty(int size) {
+            for (int i = 0; i < size; i++) {
+                if (get(i) != null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Moves values inside the column like {@link System#arraycopy} does. Values of target rows should be
+         * released before, source rows which are not overwritten should be {@link #reset(int)} after.
+         */
+        abstract void move(int from, int to, int length);
+
+        /**
+         * Creates column for values of specified class
+         *
+         * @param type class of values. Can be {@code null}
+         * @return column
+         */
+        static Column create(Class<?> type) {
+            if (type == null) {
+                return new DictionaryColumn();
+            } else if (type == Long.class || type == Long.TYPE) {
+                return new LongColumn(LongKind.LONG);
+            } else if (type == Integer.class || type == Integer.TYPE) {
+                return new LongColumn(LongKind.INTEGER);
+            } else if (type == Short.class || type == Short.TYPE) {
+                return new LongColumn(LongKind.SHORT);
+            } else if (type == Byte.class || type == Byte.TYPE) {
+                return new LongColumn(LongKind.BYTE);
+            } else if (type == Boolean.class || type == Boolean.TYPE) {
+                return new LongColumn(LongKind.BOOLEAN);
+            } else if (java.sql.Timestamp.class.isAssignableFrom(type)) {
+                return new LongColumn(LongKind.TIMESTAMP);
+            } else if (java.sql.Date.class.isAssignableFrom(type)) {
+                return new LongColumn(LongKind.SQL_DATE);
+            } else if (Date.class.isAssignableFrom(type)) {
+                return new LongColumn(LongKind.DATE);
+            } else if (type == Double.class || type == Double.TYPE) {
+                return new DoubleColumn(false);
+            } else if (type == Float.class || type == Float.TYPE) {
+                return new DoubleColumn(true);
+            } else {
+                return new DictionaryColumn();
+            }
+        }
+
+        static void moveBits(BitSet bits, int from, int to, int length) {
+            if (from > to) {
+                for (int i = 0; i < length; i++) {
+                    bits.set(to + i, bits.get(from + i));
+                }
+            } else {
+                for (int i = length - 1; i >= 0; i--) {
+                    bits.set(to + i, bits.get(from + i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Type of value kept in {@code long}
+     */
+    private enum LongKind {
+        LONG {
+            @Override
+            Object box(long value) {
+                return value;
+            }
+        },
+        INTEGER {
+            @Override
+            Object box(long value) {
+                return (int) value;
+            }
+        },
+        SHORT {
+            @Override
+            Object box(long value) {
+                return (short) value;
+            }
+        },
+        BYTE {
+            @Override
+            Object box(long value) {
+                return (byte) value;
+            }
+        },
+        BOOLEAN {
+            @Override
+            Object box(long value) {
+                return value != 0;
+            }
+        },
+        DATE {
+            @Override
+            Object box(long value) {
+                return new Date(value);
+            }
+
+            @Override
+            boolean accepts(Object value) {
+                return value.getClass() == Date.class;
+            }
+        },
+        SQL_DATE {
+            @Override
+            Object box(long value) {
+                return new java.sql.Date(value);
+            }
+
+            @Override
+            boolean accepts(Object value) {
+                return value.getClass() == java.sql.Date.class;
+            }
+        },
+        TIMESTAMP {
+            @Override
+            Object box(long value) {
+                return new java.sql.Timestamp(value);
+            }
+
+            @Override
+            boolean accepts(Object value) {
+                //в long помещаются только миллисекунды
+                return value.getClass() == java.sql.Timestamp.class
+                        && ((java.sql.Timestamp) value).getNanos() % 1000000 == 0;
+            }
+        };
+
+        abstract Object box(long value);
+
+        /**
+         * @param value not null value
+         * @return is value boxed back to the same class without loss of precision
+         */
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        static long unbox(Object value) {
+            if (value instanceof Date) {
+                return ((Date) value).getTime();
+            } else if (value instanceof Boolean) {
+                return (Boolean) value ? 1 : 0;
+            } else {
+                return ((Number) value).longValue();
+            }
+        }
+    }
+
+    private static class LongColumn extends Column {
+        private final LongKind kind;
+        private final BitSet nulls = new BitSet();
+        private long[] values = new long[0];
+
+        LongColumn(LongKind kind) {
+            this.kind = kind;
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        Object get(int index) {
+            return nulls.get(index) ? null : kind.box(values[index]);
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value == null || kind.accepts(value);
+        }
+
+        @Override
+        void set(int index, Object value) {
+            nulls.set(index, value == null);
+            values[index] = value == null ? 0 : LongKind.unbox(value);
+        }
+
+        @Override
+        void clear(int index) {
+            nulls.clear(index);
+            values[index] = 0;
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+            moveBits(nulls, from, to, length);
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+        private final boolean isFloat;
+        private final BitSet nulls = new BitSet();
+        private double[] values = new double[0];
+
+        DoubleColumn(boolean isFloat) {
+            this.isFloat = isFloat;
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        Object get(int index) {
+            if (nulls.get(index)) {
+                return null;
+            } else {
+                return isFloat ? (Object) (float) values[index] : (Object) values[index];
+            }
+        }
+
+        @Override
+        void set(int index, Object value) {
+            nulls.set(index, value == null);
+            values[index] = value == null ? 0 : ((Number) value).doubleValue();
+        }
+
+        @Override
+        void clear(int index) {
+            nulls.clear(index);
+            values[index] = 0;
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+            moveBits(nulls, from, to, length);
+        }
+    }
+
+    /**
+     * Column with deduplicated values. Row keeps only code of value in dictionary. Every value counts its rows,
+     * values without rows are released and their codes are reused.
+     */
+    private static class DictionaryColumn extends Column {
+        private final List<Object> dictionary = new ArrayList<>();
+        private final Map<Object, Integer> codes = new HashMap<>();
+        private final Deque<Integer> freeCodes = new ArrayDeque<>();
+        private int[] counts = new int[0];
+        private int[] rows = new int[0];
+
+        @Override
+        void resize(int capacity) {
+            int oldLength = rows.length;
+            rows = Arrays.copyOf(rows, capacity);
+            Arrays.fill(rows, oldLength, capacity, -1);
+        }
+
+        @Override
+        Object get(int index) {
+            int code = rows[index];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        @Override
+        void set(int index, Object value) {
+            int code = value != null ? acquire(value) : -1;
+            release(rows[index]);
+            rows[index] = code;
+        }
+
+        @Override
+        void clear(int index) {
+            release(rows[index]);
+            rows[index] = -1;
+        }
+
+        @Override
+        void reset(int index) {
+            rows[index] = -1;
+        }
+
+        private int acquire(Object value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = freeCodes.poll();
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.add(value);
+                    if (code == counts.length) {
+                        counts = Arrays.copyOf(counts, Math.max(counts.length * 2, 16));
+                    }
+                } else {
+                    dictionary.set(code, value);
+                }
+                codes.put(value, code);
+            }
+            counts[code]++;
+            return code;
+        }
+
+        private void release(int code) {
+            if (code >= 0 && --counts[code] == 0) {
+                codes.remove(dictionary.get(code));
+                dictionary.set(code, null);
+                freeCodes.push(code);
+            }
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(rows, from, rows, to, length);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.mira.zk.lists;
+
+import com.mira.utils.ClassUtils;
+import org.zkoss.util.media.Media;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Streaming import of objects from CSV. First line of the file is a header, its cells are matched to captions
+ * or paths of fields. Rows are read one by one and are passed to consumer in batches of fixed size,
+ * so memory usage doesn't depend on the size of the file. Length of cells and records is limited, so malformed
+ * file (e.g. with unclosed quote) can't be read to memory as one cell.
+ *
+ * @param <T> object class
+ */
+public class CsvImporter<T> {
+    private final Class<? extends T> objectClass;
+    private final List<FieldInfo> fields;
+    private char separator = ';';
+    private int batchSize = 500;
+    private Charset charset = StandardCharsets.UTF_8;
+    private int maxCellLength = 64 * 1024;
+    private int maxRecordLength = 1024 * 1024;
+
+    /**
+     * Creates importer
+     *
+     * @param objectClass class of imported objects
+     * @param fields      fields which could be imported
+     */
+    public CsvImporter(Class<? extends T> objectClass, List<FieldInfo> fields) {
+        this.objectClass = objectClass;
+        this.fields = fields;
+    }
+
+    /**
+     * @return separator of cells
+     */
+    public char getSeparator() {
+        return separator;
+    }
+
+    /**
+     * Setts separator of cells
+     *
+     * @param separator separator
+     */
+    public void setSeparator(char separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * @return number of objects in one batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Setts number of objects in one batch
+     *
+     * @param batchSize number of objects
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return charset of binary files
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Setts charset of binary files
+     *
+     * @param charset charset
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * @return maximum number of characters in one cell
+     */
+    public int getMaxCellLength() {
+        return maxCellLength;
+    }
+
+    /**
+     * Setts maximum number of characters in one cell. Longer cell fails the import.
+     *
+     * @param maxCellLength number of characters
+     */
+    public void setMaxCellLength(int maxCellLength) {
+        this.maxCellLength = maxCellLength;
+    }
+
+    /**
+     * @return maximum number of characters in one record
+     */
+    public int getMaxRecordLength() {
+        return maxRecordLength;
+    }
+
+    /**
+     * Setts maximum number of characters in one record including separators. Longer record fails the import.
+     *
+     * @param maxRecordLength number of characters
+     */
+    public void setMaxRecordLength(int maxRecordLength) {
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Opens reader of uploaded file. File isn't loaded to memory.
+     *
+     * @param media uploaded file
+     * @return reader
+     */
+    public Reader openReader(Media media) {
+        return media.isBinary() ? new InputStreamReader(media.getStreamData(), charset) : media.getReaderData();
+    }
+
+    /**
+     * Reads objects from CSV.
+     *
+     * @param reader   source of CSV
+     * @param consumer consumer of batches of objects
+     * @param progress receives total number of read rows after every batch. Can be {@code null}
+     * @return number of imported objects
+     * @throws IOException              if reading has failed
+     * @throws IllegalArgumentException if file has wrong format or its cells or records are too long
+     */
+    public long importObjects(Reader reader, Consumer<List<T>> consumer, LongConsumer progress) throws IOException {
+        Parser parser = new Parser(new BufferedReader(reader), separator, maxCellLength, maxRecordLength);
+        List<String> header = parser.readRecord();
+        if (header == null) {
+            return 0;
+        }
+        Column[] columns = mapColumns(header);
+        long count = 0;
+        List<T> batch = new ArrayList<T>(batchSize);
+        List<String> record;
+        while ((record = parser.readRecord()) != null) {
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            batch.add(createObject(columns, record, parser.getLine()));
+            count++;
+            if (batch.size() >= batchSize) {
+                consumer.accept(batch);
+                batch = new ArrayList<T>(batchSize);
+                if (progress != null) {
+                    progress.accept(count);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+            if (progress != null) {
+                progress.accept(count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Matches cells of header to fields
+     */
+    private Column[] mapColumns(List<String> header) {
+        Column[] result = new Column[header.size()];
+        boolean found = false;
+        for (int i = 0; i < result.length; i++) {
+            String name = header.get(i).trim();
+            for (FieldInfo field : fields) {
+                if (!field.isReadOnly()
+                        && (name.equalsIgnoreCase(field.getCaption()) || name.equalsIgnoreCase(field.getPath()))) {
+                    result[i] = new Column(field, ClassUtils.getType(objectClass, field.getPath()));
+                    found = true;
+                    break;
+                }
+            }
+        }
+        if (!found) {
+            throw new IllegalArgumentException("Ни одна колонка файла не соответствует полям формы");
+        }
+        return result;
+    }
+
+    private T createObject(Column[] columns, List<String> record, long line) {
+        T object = ClassUtils.newInstance(objectClass);
+        for (int i = 0; i < columns.length && i < record.size(); i++) {
+            Column column = columns[i];
+            if (column != null) {
+                try {
+                    ClassUtils.setValue(object, column.path, column.convert(record.get(i)));
+                } catch (RuntimeException ex) {
+                    throw new IllegalArgumentException(String.format("Неверное значение '%s' поля '%s' в строке %d",
+                            record.get(i), column.caption, line), ex);
+                }
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Column of file matched to the field
+     */
+    private static class Column {
+        private final String path;
+        private final String caption;
+        private final Class<?> type;
+        private final Map<String, Object> values;
+
+        Column(FieldInfo field, Class<?> type) {
+            this.path = field.getPath();
+            this.caption = field.getCaption();
+            this.type = type;
+            if (field.getValues() != null) {
+                values = new HashMap<String, Object>();
+                for (Map.Entry<Object, String> entry : field.getValues().entrySet()) {
+                    values.put(entry.getValue(), entry.getKey());
+                }
+            } else {
+                values = null;
+            }
+        }
+
+        Object convert(String text) {
+            if (text.isEmpty()) {
+                return null;
+            } else if (values != null) {
+                if (!values.containsKey(text)) {
+                    throw new IllegalArgumentException(String.format("Недопустимое значение %s", text));
+                }
+                return values.get(text);
+            } else {
+                return type != null ? ClassUtils.convert(type, text) : text;
+            }
+        }
+    }
+
+    /**
+     * Streaming parser of CSV records. Supports quoted cells with separators, quotes and line breaks.
+     */
+    static class Parser {
+        private final Reader reader;
+        private final char separator;
+        private final int maxCellLength;
+        private final int maxRecordLength;
+        private int pushedBack = -2;
+        /**
+         * Number of the physical line where the last record starts
+         */
+        private long line;
+        /**
+         * Number of read line breaks, including line breaks inside quoted cells
+         */
+        private long lineBreaks;
+        private int recordLength;
+        private boolean started;
+
+        Parser(Reader reader, char separator, int maxCellLength, int maxRecordLength) {
+            this.reader = reader;
+            this.separator = separator;
+            this.maxCellLength = maxCellLength;
+            this.maxRecordLength = maxRecordLength;
+        }
+
+        /**
+         * @return number of the line of file where the last record starts
+         */
+        long getLine() {
+            return line;
+        }
+
+        List<String> readRecord() throws IOException {
+            int c = read();
+            if (!started) {
+                started = true;
+                if (c == '\uFEFF') {
+                    c = read();
+                }
+            }
+            if (c == -1) {
+                return null;
+            }
+            line = lineBreaks + 1;
+            recordLength = 0;
+            List<String> record = new ArrayList<String>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException(String.format(
+                                "Кавычка ячейки в строке %d не закрыта до конца файла", line));
+                    } else if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            append(cell, '"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            lineBreaks++;
+                        }
+                        append(cell, (char) c);
+                    }
+                } else if (c == -1 || c == '\n') {
+                    lineBreaks += c == '\n' ? 1 : 0;
+                    record.add(cell.toString());
+                    return record;
+                } else if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        pushedBack = next;
+                    }
+                    lineBreaks++;
+                    record.add(cell.toString());
+                    return record;
+                } else if (c == separator) {
+                    countRecordLength();
+                    record.add(cell.toString());
+                    cell.setLength(0);
+                } else if (c == '"' && cell.length() == 0) {
+                    quoted = true;
+                } else {
+                    append(cell, (char) c);
+                }
+                c = read();
+            }
+        }
+
+        private void append(StringBuilder cell, char c) {
+            if (cell.length() >= maxCellLength) {
+                throw new IllegalArgumentException(String.format("Ячейка в строке %d длиннее %d символов",
+                        line, maxCellLength));
+            }
+            countRecordLength();
+            cell.append(c);
+        }
+
+        private void countRecordLength() {
+            if (++recordLength > maxRecordLength) {
+                throw new IllegalArgumentException(String.format("Запись в строке %d длиннее %d символов",
+                        line, maxRecordLength));
+            }
+        }
+
+        private int read() throws IOException {
+            if (pushedBack != -2) {
+                int result = pushedBack;
+                pushedBack = -2;
+                return result;
+            }
+            return reader.read();
+        }
+    }
+}
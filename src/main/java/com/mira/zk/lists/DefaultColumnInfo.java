@@ -1,9 +1,13 @@
 package com.mira.zk.lists;
 
+import java.io.Serializable;
+
 /**
  * Default column metadata
  */
-public class DefaultColumnInfo implements ColumnInfo {
+public class DefaultColumnInfo implements ColumnInfo, Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String caption;
     private String width;
     private String path;
@@ -1,17 +1,22 @@
 package com.mira.zk.lists;
 
+import com.mira.zk.components.LookupProvider;
 import org.zkoss.zk.ui.Component;
 
+import java.io.Serializable;
 import java.util.Map;
 
 /**
  * Editing field metadata
  */
-public class DefaultFieldInfo implements FieldInfo {
+public class DefaultFieldInfo implements FieldInfo, Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String caption;
     private String path;
     private Map<Object, String> values;
     private boolean readOnly;
+    private LookupProvider<?> lookupProvider;
 
     public DefaultFieldInfo(String path, String caption) {
         this.caption = caption;
@@ -66,6 +71,20 @@ public class DefaultFieldInfo implements FieldInfo {
         this.values = values;
     }
 
+    @Override
+    public LookupProvider<?> getLookupProvider() {
+        return lookupProvider;
+    }
+
+    /**
+     * Setts provider of values, which are searched by typed text instead of showing all of them.
+     *
+     * @param lookupProvider provider of values
+     */
+    public void setLookupProvider(LookupProvider<?> lookupProvider) {
+        this.lookupProvider = lookupProvider;
+    }
+
     @Override
     public boolean isReadOnly() {
         return readOnly;
@@ -0,0 +1,175 @@
+package com.mira.zk.lists;
+
+import com.mira.utils.ClassUtils;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Index of objects by values of facet fields. Every object gets stable row id, and for every value of every facet
+ * there is a bitmap of rows with this value and a count of them. Counts are updated in constant time when object
+ * is put or removed, and filter by several facets is computed by union and intersection of bitmaps.
+ *
+ * @param <T> object class
+ */
+public class FacetIndex<T> {
+    private final String[] paths;
+    private final Function<T, Object> keyExtractor;
+    private final List<T> rows = new ArrayList<T>();
+    private final List<Object[]> rowValues = new ArrayList<Object[]>();
+    private final Map<Object, Integer> ids = new HashMap<Object, Integer>();
+    private final BitSet alive = new BitSet();
+    private final List<Map<Object, Facet>> facets = new ArrayList<Map<Object, Facet>>();
+
+    /**
+     * Creates empty index
+     *
+     * @param paths        paths of facet fields
+     * @param keyExtractor function which returns key of object
+     */
+    public FacetIndex(Collection<String> paths, Function<T, Object> keyExtractor) {
+        this.paths = paths.toArray(new String[0]);
+        this.keyExtractor = keyExtractor;
+        for (int i = 0; i < this.paths.length; i++) {
+            facets.add(new HashMap<Object, Facet>());
+        }
+    }
+
+    /**
+     * Creates index of objects in one pass.
+     *
+     * @param paths        paths of facet fields
+     * @param keyExtractor function which returns key of object
+     * @param objects      indexed objects
+     * @param <T>          object class
+     * @return index
+     */
+    public static <T> FacetIndex<T> build(Collection<String> paths, Function<T, Object> keyExtractor,
+                                          Collection<T> objects) {
+        FacetIndex<T> index = new FacetIndex<T>(paths, keyExtractor);
+        for (T object : objects) {
+            index.put(object);
+        }
+        return index;
+    }
+
+    /**
+     * Adds object to the index or replaces object with the same key.
+     *
+     * @param object object
+     */
+    public void put(T object) {
+        Object key = keyExtractor.apply(object);
+        Integer id = ids.get(key);
+        if (id != null) {
+            unindex(id);
+        } else {
+            //занимаем первый свободный идентификатор, чтобы битовые карты не росли
+            id = alive.nextClearBit(0);
+            ids.put(key, id);
+        }
+        Object[] values = new Object[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            values[i] = ClassUtils.getValue(object, paths[i]);
+            Facet facet = facets.get(i).computeIfAbsent(values[i], value -> new Facet());
+            facet.rows.set(id);
+            facet.count++;
+        }
+        while (rows.size() <= id) {
+            rows.add(null);
+            rowValues.add(null);
+        }
+        rows.set(id, object);
+        rowValues.set(id, values);
+        alive.set(id);
+    }
+
+    /**
+     * Removes object with specified key from the index.
+     *
+     * @param key key of object
+     */
+    public void remove(Object key) {
+        Integer id = ids.remove(key);
+        if (id != null) {
+            unindex(id);
+            rows.set(id, null);
+            rowValues.set(id, null);
+            alive.clear(id);
+        }
+    }
+
+    private void unindex(int id) {
+        Object[] values = rowValues.get(id);
+        for (int i = 0; i < paths.length; i++) {
+            Facet facet = facets.get(i).get(values[i]);
+            facet.rows.clear(id);
+            facet.count--;
+        }
+    }
+
+    /**
+     * @param path  path of facet field
+     * @param value value of the field
+     * @return number of objects with specified value
+     */
+    public int getCount(String path, Object value) {
+        int i = indexOfPath(path);
+        Facet facet = i >= 0 ? facets.get(i).get(value) : null;
+        return facet != null ? facet.count : 0;
+    }
+
+    /**
+     * Returns objects which match selected values. Within one facet values are combined by "or",
+     * different facets are combined by "and". Facet without selected values doesn't restrict objects.
+     *
+     * @param selection selected values by paths of facet fields
+     * @return matching objects in order of their row ids
+     */
+    public List<T> filter(Map<String, ? extends Collection<?>> selection) {
+        BitSet result = (BitSet) alive.clone();
+        for (Map.Entry<String, ? extends Collection<?>> entry : selection.entrySet()) {
+            int i = indexOfPath(entry.getKey());
+            if (i < 0 || entry.getValue().isEmpty()) {
+                continue;
+            }
+            BitSet matching = new BitSet();
+            for (Object value : entry.getValue()) {
+                Facet facet = facets.get(i).get(value);
+                if (facet != null) {
+                    matching.or(facet.rows);
+                }
+            }
+            result.and(matching);
+        }
+        List<T> objects = new ArrayList<T>(result.cardinality());
+        for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+            objects.add(rows.get(id));
+        }
+        return objects;
+    }
+
+    /**
+     * @return number of indexed objects
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    private int indexOfPath(String path) {
+        for (int i = 0; i < paths.length; i++) {
+            if (paths[i].equals(path)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Rows and count of one value of the facet
+     */
+    private static class Facet {
+        private final BitSet rows = new BitSet();
+        private int count;
+    }
+}
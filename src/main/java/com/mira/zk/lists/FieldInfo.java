@@ -1,5 +1,6 @@
 package com.mira.zk.lists;
 
+import com.mira.zk.components.LookupProvider;
 import org.zkoss.zk.ui.Component;
 
 import java.util.Map;
@@ -24,13 +25,24 @@ public interface FieldInfo {
      */
     Map<Object, String> getValues();
 
+    /**
+     * Returns provider of values for fields with huge lists of values. Such field is edited by
+     * {@link com.mira.zk.components.AutocompleteCombo}, which shows only values matching typed text.
+     * Has priority over {@link #getValues()}.
+     * @return provider of values or {@code null}
+     */
+    default LookupProvider<?> getLookupProvider() {
+        return null;
+    }
+
     /**
      * @return is field readonly.
      */
     boolean isReadOnly();
 
     /**
-     * Processes editor before field is assigned to it
+     * Processes editor before field is assigned to it. Read-only field is shown by {@link org.zkoss.zul.Label},
+     * which is passed here as editor.
      * @param editor editor for the field
      */
     void processEditor(Component editor);
@@ -0,0 +1,47 @@
+package com.mira.zk.lists;
+
+import java.util.Collections;
+
+/**
+ * Polls changes of the list through presenter by change tokens. Token of the state shown in the form is kept,
+ * so every poll returns only changes since the previous one.
+ *
+ * @param <T> class of objects
+ */
+class ListChangePoller<T> {
+    private Object token;
+
+    /**
+     * Remembers the current state of data, e.g. after full refresh of the list
+     *
+     * @param presenter presenter of the form
+     */
+    void reset(ListFormPresenter<T> presenter) {
+        token = presenter.getChangeToken();
+    }
+
+    /**
+     * Forgets the state, e.g. when the form is disposed or bound to another presenter
+     */
+    void clear() {
+        token = null;
+    }
+
+    /**
+     * Loads changes since the previous poll. The first poll only remembers the current state.
+     *
+     * @param presenter presenter of the form
+     * @return changes or {@code null}, if presenter can't compute them and the list should be refreshed
+     */
+    ListFormChanges<T> poll(ListFormPresenter<T> presenter) {
+        if (token == null) {
+            reset(presenter);
+            return new ListFormChanges<T>(token, Collections.<T>emptyList(), Collections.emptyList());
+        }
+        ListFormChanges<T> changes = presenter.loadChanges(token);
+        if (changes != null) {
+            token = changes.getToken();
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mira.zk.lists;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Changes of the list since some change token, see {@link ListFormPresenter#loadChanges(Object)}.
+ *
+ * @param <T> object class
+ */
+public class ListFormChanges<T> {
+    private final Object token;
+    private final Collection<T> changedObjects;
+    private final Collection<?> removedKeys;
+
+    /**
+     * Creates changes
+     *
+     * @param token          token of the state after these changes
+     * @param changedObjects added and changed objects
+     * @param removedKeys    keys of removed objects
+     */
+    public ListFormChanges(Object token, Collection<T> changedObjects, Collection<?> removedKeys) {
+        this.token = token;
+        this.changedObjects = changedObjects != null ? changedObjects : Collections.<T>emptyList();
+        this.removedKeys = removedKeys != null ? removedKeys : Collections.emptyList();
+    }
+
+    /**
+     * @return token of the state after these changes. It's passed to the next request of changes.
+     */
+    public Object getToken() {
+        return token;
+    }
+
+    /**
+     * @return added and changed objects
+     */
+    public Collection<T> getChangedObjects() {
+        return changedObjects;
+    }
+
+    /**
+     * @return keys of removed objects
+     */
+    public Collection<?> getRemovedKeys() {
+        return removedKeys;
+    }
+
+    /**
+     * @return are there no changes
+     */
+    public boolean isEmpty() {
+        return changedObjects.isEmpty() && removedKeys.isEmpty();
+    }
+}
@@ -0,0 +1,42 @@
+package com.mira.zk.lists;
+
+/**
+ * JMX interface for memory accounting of list forms
+ */
+public interface ListFormMemoryMXBean {
+    /**
+     * @return number of alive list forms
+     */
+    int getFormCount();
+
+    /**
+     * @return number of desktops with list forms
+     */
+    int getDesktopCount();
+
+    /**
+     * @return rough estimation of memory used by all list forms in bytes
+     */
+    long getTotalEstimatedSize();
+
+    /**
+     * @return total number of elements in models of main lists of all forms
+     */
+    long getTotalModelElements();
+
+    /**
+     * Returns the heaviest forms
+     *
+     * @param count maximum number of forms
+     * @return descriptions of forms sorted by estimated size
+     */
+    String[] getTopForms(int count);
+
+    /**
+     * Returns the heaviest desktops
+     *
+     * @param count maximum number of desktops
+     * @return descriptions of desktops sorted by estimated size
+     */
+    String[] getTopDesktops(int count);
+}
@@ -0,0 +1,120 @@
+package com.mira.zk.lists;
+
+import com.mira.zk.SharedListModel;
+import org.zkoss.zk.ui.Component;
+import org.zkoss.zk.ui.Desktop;
+import org.zkoss.zk.ui.Executions;
+import org.zkoss.zk.ui.event.Event;
+import org.zkoss.zul.ListModel;
+import org.zkoss.zul.Listbox;
+import org.zkoss.zul.Listitem;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps snapshot of memory statistics of a list form. Components can be read only in the event thread of their
+ * desktop, so statistics are collected there and only when they are requested by {@link ListFormRegistry}:
+ * request schedules collection to the desktop, if server push is enabled, otherwise statistics are collected
+ * after the next rendering or change of the form. Rendering itself doesn't pay for monitoring until it's used.
+ */
+class ListFormMemoryMonitor {
+    private final Supplier<ListFormMemoryStats> collector;
+    private volatile ListFormMemoryStats stats;
+    private volatile boolean requested;
+
+    /**
+     * Creates monitor
+     *
+     * @param collector collects statistics of the form. Is called in the event thread.
+     */
+    ListFormMemoryMonitor(Supplier<ListFormMemoryStats> collector) {
+        this.collector = collector;
+    }
+
+    /**
+     * Returns the last snapshot and requests the fresh one. Could be called from any thread.
+     *
+     * @param desktop desktop of the form. Can be {@code null}
+     * @return statistics or {@code null}, if they are not collected yet
+     */
+    ListFormMemoryStats getStats(Desktop desktop) {
+        if (!requested) {
+            requested = true;
+            if (desktop != null && desktop.isAlive() && desktop.isServerPushEnabled()) {
+                try {
+                    Executions.schedule(desktop, event -> updateIfRequested(), new Event("onListFormMemoryStats"));
+                } catch (RuntimeException ex) {
+                    //рабочий стол уже закрыт, снимок снимется при следующем событии формы, если оно будет
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Collects statistics, if they were requested since the last collection. Should be called in the event thread.
+     */
+    void updateIfRequested() {
+        if (requested) {
+            requested = false;
+            stats = collector.get();
+        }
+    }
+
+    /**
+     * Forgets the snapshot, e.g. when the form is disposed
+     */
+    void reset() {
+        requested = false;
+        stats = null;
+    }
+
+    /**
+     * Collects statistics of the form. Should be called in the event thread.
+     *
+     * @param listbox     main list
+     * @param name        name of the form
+     * @param pendingRows number of rows not appended to main list yet
+     * @param editors     editors of the form
+     * @param cachedRows  number of rows in caches of the form
+     * @return statistics or {@code null}, if main list isn't attached to desktop
+     */
+    static ListFormMemoryStats collect(Listbox listbox, String name, long pendingRows, Collection<Component> editors,
+                                       long cachedRows) {
+        if (listbox == null || listbox.getDesktop() == null) {
+            return null;
+        }
+        ListModel<?> model = listbox.getModel();
+        long modelElements = model instanceof PagedListModel ? ((PagedListModel<?>) model).getLoadedSize()
+                : model != null ? model.getSize() : 0;
+        long items = 0;
+        long cells = 0;
+        for (Listitem item : listbox.getItems()) {
+            if (item.isLoaded()) {
+                items++;
+                cells += item.getChildren().size();
+            }
+        }
+        long lookupModels = 0;
+        long lookupElements = 0;
+        Map<Object, Long> sharedLookups = new IdentityHashMap<>();
+        for (Component editor : editors) {
+            ListModel<?> lookupModel = editor instanceof Listbox ? ((Listbox) editor).getModel() : null;
+            if (lookupModel != null) {
+                lookupModels++;
+                if (lookupModel instanceof SharedListModel) {
+                    //общий список хранится один раз, сколько бы редакторов его ни показывали
+                    sharedLookups.put(((SharedListModel<?>) lookupModel).getSharedIdentity(),
+                            (long) lookupModel.getSize());
+                } else {
+                    lookupElements += lookupModel.getSize();
+                }
+            }
+        }
+        return new ListFormMemoryStats(listbox.getDesktop().getId(), name, modelElements + pendingRows, items, cells,
+                editors.size(), lookupModels, lookupElements, sharedLookups, cachedRows);
+    }
+}
@@ -0,0 +1,164 @@
+package com.mira.zk.lists;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Estimation of memory used by one list form. Contains numbers of objects kept by the form on the server.
+ * Lookup lists shared between editors ({@link com.mira.zk.SharedListModel}) are counted once, also in sums
+ * of several forms.
+ */
+public class ListFormMemoryStats {
+    /**
+     * Rough size of element of the model in bytes
+     */
+    public static final int MODEL_ELEMENT_SIZE = 64;
+    /**
+     * Rough size of component in bytes
+     */
+    public static final int COMPONENT_SIZE = 512;
+    /**
+     * Rough size of cached row in bytes
+     */
+    public static final int CACHED_ROW_SIZE = 128;
+
+    private final String desktopId;
+    private final String formName;
+    private final long modelElements;
+    private final long renderedItems;
+    private final long renderedCells;
+    private final long editors;
+    private final long lookupModels;
+    private final long lookupElements;
+    private final Map<Object, Long> sharedLookups;
+    private final long cachedRows;
+
+    public ListFormMemoryStats(String desktopId, String formName, long modelElements, long renderedItems,
+                               long renderedCells, long editors, long lookupModels, long lookupElements,
+                               long cachedRows) {
+        this(desktopId, formName, modelElements, renderedItems, renderedCells, editors, lookupModels, lookupElements,
+                Collections.emptyMap(), cachedRows);
+    }
+
+    /**
+     * Creates statistics
+     *
+     * @param lookupElements number of elements in own models of lookup editors
+     * @param sharedLookups  sizes of shared lookup lists by their identities, see
+     *                       {@link com.mira.zk.SharedListModel#getSharedIdentity()}
+     */
+    public ListFormMemoryStats(String desktopId, String formName, long modelElements, long renderedItems,
+                               long renderedCells, long editors, long lookupModels, long lookupElements,
+                               Map<Object, Long> sharedLookups, long cachedRows) {
+        this.desktopId = desktopId;
+        this.formName = formName;
+        this.modelElements = modelElements;
+        this.renderedItems = renderedItems;
+        this.renderedCells = renderedCells;
+        this.editors = editors;
+        this.lookupModels = lookupModels;
+        this.lookupElements = lookupElements;
+        this.sharedLookups = sharedLookups;
+        this.cachedRows = cachedRows;
+    }
+
+    /**
+     * @return id of desktop of the form
+     */
+    public String getDesktopId() {
+        return desktopId;
+    }
+
+    /**
+     * @return name of the form
+     */
+    public String getFormName() {
+        return formName;
+    }
+
+    /**
+     * @return number of elements in the model of main list
+     */
+    public long getModelElements() {
+        return modelElements;
+    }
+
+    /**
+     * @return number of rendered {@code Listitem}s of main list
+     */
+    public long getRenderedItems() {
+        return renderedItems;
+    }
+
+    /**
+     * @return number of rendered {@code Listcell}s of main list
+     */
+    public long getRenderedCells() {
+        return renderedCells;
+    }
+
+    /**
+     * @return number of editors of the form
+     */
+    public long getEditors() {
+        return editors;
+    }
+
+    /**
+     * @return number of models of lookup editors
+     */
+    public long getLookupModels() {
+        return lookupModels;
+    }
+
+    /**
+     * @return total number of elements in models of lookup editors, every shared list is counted once
+     */
+    public long getLookupElements() {
+        long result = lookupElements;
+        for (long size : sharedLookups.values()) {
+            result += size;
+        }
+        return result;
+    }
+
+    /**
+     * @return number of rows in caches of the form
+     */
+    public long getCachedRows() {
+        return cachedRows;
+    }
+
+    /**
+     * @return rough estimation of memory used by the form in bytes
+     */
+    public long getEstimatedSize() {
+        return (modelElements + getLookupElements()) * MODEL_ELEMENT_SIZE
+                + (renderedItems + renderedCells + editors) * COMPONENT_SIZE
+                + cachedRows * CACHED_ROW_SIZE;
+    }
+
+    /**
+     * Adds numbers of other form. Lookup lists shared by both forms are counted once.
+     *
+     * @param other other form
+     * @param name  name of result
+     * @return sum of numbers
+     */
+    public ListFormMemoryStats add(ListFormMemoryStats other, String name) {
+        Map<Object, Long> shared = new IdentityHashMap<>(sharedLookups);
+        shared.putAll(other.sharedLookups);
+        return new ListFormMemoryStats(desktopId, name, modelElements + other.modelElements,
+                renderedItems + other.renderedItems, renderedCells + other.renderedCells, editors + other.editors,
+                lookupModels + other.lookupModels, lookupElements + other.lookupElements, shared,
+                cachedRows + other.cachedRows);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [%s]: ~%d KB, model=%d, items=%d, cells=%d, editors=%d, lookups=%d/%d, cached=%d",
+                formName, desktopId, getEstimatedSize() / 1024, modelElements, renderedItems, renderedCells,
+                editors, lookupModels, getLookupElements(), cachedRows);
+    }
+}
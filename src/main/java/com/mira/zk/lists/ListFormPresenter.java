@@ -1,5 +1,9 @@
 package com.mira.zk.lists;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Interface of presenter for list form
  */
@@ -34,4 +38,147 @@ public interface ListFormPresenter<T> {
      * Saves changes made to selected on the view object.
      */
     void edit();
+
+    /**
+     * Deletes all objects selected on the view. Presenters should override it to delete objects in one batch,
+     * by default they are deleted one by one by {@link #delete()}.
+     * @param view view with selected objects
+     */
+    default void deleteAll(ListFormView<T> view) {
+        view.forEachSelectedObject(this::delete);
+    }
+
+    /**
+     * Saves changes made on the view to all selected objects. Presenters should override it to save objects
+     * in one batch, by default they are saved one by one by {@link #edit()}.
+     * @param view view with selected objects
+     */
+    default void updateAll(ListFormView<T> view) {
+        view.forEachSelectedObject(this::edit);
+    }
+
+    /**
+     * @return does presenter support {@link #importObjects(List)}
+     */
+    default boolean supportsImport() {
+        return false;
+    }
+
+    /**
+     * Saves batch of imported objects. Is called from background thread, so implementation shouldn't access the view.
+     * Is called only if {@link #supportsImport()} returns {@code true}.
+     * @param objects new objects
+     */
+    default void importObjects(List<T> objects) {
+        throw new UnsupportedOperationException(String.format("%s doesn't support import", getClass().getName()));
+    }
+
+    /**
+     * Returns key which identifies object in the list. By default object itself is its key.
+     * @param object object
+     * @return key of the object
+     */
+    default Object getKey(T object) {
+        return object;
+    }
+
+    /**
+     * @return does presenter support {@link #loadObject(Object)}
+     */
+    default boolean supportsLoadingByKey() {
+        return false;
+    }
+
+    /**
+     * Loads object by its key. Is used by views which don't keep objects in memory,
+     * e.g. with {@link ColumnarListModel}. Is called only if {@link #supportsLoadingByKey()} returns {@code true}.
+     * @param key key of the object
+     * @return loaded object or {@code null}, if object is not found
+     */
+    default T loadObject(Object key) {
+        throw new UnsupportedOperationException(String.format("%s doesn't support loading objects by key", getClass().getName()));
+    }
+
+    /**
+     * Returns version of object, e.g. optimistic lock version or last modification time. Is used to check
+     * if cached representation of the object is still actual.
+     * @param object object
+     * @return version of the object or {@code null}, if versions are not supported
+     */
+    default Object getVersion(T object) {
+        return null;
+    }
+
+    /**
+     * @return does presenter support paged loading by {@link #countObjects()} and {@link #loadObjects(int, int)}
+     */
+    default boolean supportsPaging() {
+        return false;
+    }
+
+    /**
+     * Counts objects of the list. Is used by views in paged mode, if {@link #supportsPaging()} returns {@code true}.
+     * @return total number of objects
+     */
+    default int countObjects() {
+        throw new UnsupportedOperationException(String.format("%s doesn't support paged loading", getClass().getName()));
+    }
+
+    /**
+     * Loads page of objects. Is used by views in paged mode and can be called from background threads,
+     * so implementation should be thread-safe and shouldn't access the view.
+     * @param offset index of the first object
+     * @param count number of objects
+     * @return objects of the page
+     */
+    default List<T> loadObjects(int offset, int count) {
+        throw new UnsupportedOperationException(String.format("%s doesn't support paged loading", getClass().getName()));
+    }
+
+    /**
+     * Reloads objects with specified keys. Is used by the view to patch only changed rows when it can't
+     * find object in its list. Objects which are not returned are considered as deleted.
+     * @param keys keys of objects
+     * @return reloaded objects or {@code null}, if list is invalid and should be fully reloaded.
+     * Default implementation always returns {@code null}.
+     */
+    default Collection<T> reloadObjects(Collection<?> keys) {
+        return null;
+    }
+
+    /**
+     * Batch loads associations of objects before they are rendered, so the data layer can fetch them with one
+     * query instead of lazy loading for every row. Is called by the view once per rendered window of rows.
+     * Default implementation does nothing.
+     * @param objects objects which are going to be rendered
+     * @param paths nested paths of columns, e.g. {@code customer.region.name}
+     */
+    default void prefetch(List<T> objects, Set<String> paths) {
+    }
+
+    /**
+     * @return does presenter support change tracking by {@link #getChangeToken()} and {@link #loadChanges(Object)}
+     */
+    default boolean supportsChanges() {
+        return false;
+    }
+
+    /**
+     * Returns token of the current state of data, e.g. last modification time or revision. Is used by views in
+     * auto-refresh mode, if {@link #supportsChanges()} returns {@code true}. Token is taken before the list is loaded, so changes made during loading are not lost.
+     * @return change token
+     */
+    default Object getChangeToken() {
+        throw new UnsupportedOperationException(String.format("%s doesn't support change tokens", getClass().getName()));
+    }
+
+    /**
+     * Loads changes of the list since specified token. Is called by views in auto-refresh mode on every tick,
+     * so it should be cheap when nothing has changed.
+     * @param token token returned by {@link #getChangeToken()} or by previous changes
+     * @return changes or {@code null}, if changes can't be computed and list should be fully reloaded
+     */
+    default ListFormChanges<T> loadChanges(Object token) {
+        throw new UnsupportedOperationException(String.format("%s doesn't support change tokens", getClass().getName()));
+    }
 }
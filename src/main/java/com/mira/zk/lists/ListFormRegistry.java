@@ -0,0 +1,165 @@
+package com.mira.zk.lists;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of alive list forms for memory accounting. Forms are referenced weakly, so registry doesn't prevent
+ * them from garbage collection. Registry is published to JMX as {@value #OBJECT_NAME} when the first form is
+ * registered. Web application should call {@link #unregisterMBean()} on shutdown.
+ */
+public class ListFormRegistry implements ListFormMemoryMXBean {
+    /**
+     * JMX name of the registry
+     */
+    public static final String OBJECT_NAME = "com.mira.zk:type=ListFormMemory";
+
+    private static final ListFormRegistry INSTANCE = new ListFormRegistry();
+
+    private final Logger log = Logger.getLogger(getClass().getName());
+    private final Map<ZkListFormBuilder<?>, Boolean> forms = Collections.synchronizedMap(new WeakHashMap<>());
+    private boolean mbeanRegistered;
+
+    /**
+     * @return the registry
+     */
+    public static ListFormRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers form
+     *
+     * @param form list form
+     */
+    public void register(ZkListFormBuilder<?> form) {
+        forms.put(form, Boolean.TRUE);
+        registerMBean();
+    }
+
+    /**
+     * Unregisters form
+     *
+     * @param form list form
+     */
+    public void unregister(ZkListFormBuilder<?> form) {
+        forms.remove(form);
+    }
+
+    /**
+     * Collects memory statistics of all alive forms. Statistics are snapshots taken by forms in their event
+     * threads, see {@link ZkListFormBuilder#getMemoryStats()}, so forms which haven't handled any event since
+     * the first request are missing.
+     *
+     * @return statistics of forms
+     */
+    public List<ListFormMemoryStats> collect() {
+        List<ZkListFormBuilder<?>> copy;
+        synchronized (forms) {
+            copy = new ArrayList<ZkListFormBuilder<?>>(forms.keySet());
+        }
+        List<ListFormMemoryStats> result = new ArrayList<ListFormMemoryStats>(copy.size());
+        for (ZkListFormBuilder<?> form : copy) {
+            ListFormMemoryStats stats = form.getMemoryStats();
+            if (stats != null) {
+                result.add(stats);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sums statistics of forms by desktops
+     *
+     * @return statistics of desktops
+     */
+    public Collection<ListFormMemoryStats> collectByDesktops() {
+        Map<String, ListFormMemoryStats> result = new HashMap<String, ListFormMemoryStats>();
+        for (ListFormMemoryStats stats : collect()) {
+            result.merge(stats.getDesktopId(), stats, (a, b) -> a.add(b, "desktop"));
+        }
+        return result.values();
+    }
+
+    @Override
+    public int getFormCount() {
+        return forms.size();
+    }
+
+    @Override
+    public int getDesktopCount() {
+        return collectByDesktops().size();
+    }
+
+    @Override
+    public long getTotalEstimatedSize() {
+        //сумма считает общие списки редакторов один раз
+        return collect().stream().reduce((a, b) -> a.add(b, "total"))
+                .map(ListFormMemoryStats::getEstimatedSize).orElse(0L);
+    }
+
+    @Override
+    public long getTotalModelElements() {
+        return collect().stream().mapToLong(ListFormMemoryStats::getModelElements).sum();
+    }
+
+    @Override
+    public String[] getTopForms(int count) {
+        return top(collect(), count);
+    }
+
+    @Override
+    public String[] getTopDesktops(int count) {
+        return top(collectByDesktops(), count);
+    }
+
+    private static String[] top(Collection<ListFormMemoryStats> stats, int count) {
+        return stats.stream()
+                .sorted(Comparator.comparingLong(ListFormMemoryStats::getEstimatedSize).reversed())
+                .limit(count)
+                .map(ListFormMemoryStats::toString)
+                .collect(Collectors.toList())
+                .toArray(new String[0]);
+    }
+
+    /**
+     * Publishes registry to platform MBean server, if it's not published yet
+     */
+    public synchronized void registerMBean() {
+        if (!mbeanRegistered) {
+            mbeanRegistered = true;
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(this, name);
+                }
+            } catch (Exception ex) {
+                log.log(Level.WARNING, "Can't register memory accounting of list forms in JMX", ex);
+            }
+        }
+    }
+
+    /**
+     * Removes registry from platform MBean server
+     */
+    public synchronized void unregisterMBean() {
+        if (mbeanRegistered) {
+            mbeanRegistered = false;
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (Exception ex) {
+                log.log(Level.WARNING, "Can't unregister memory accounting of list forms from JMX", ex);
+            }
+        }
+    }
+}
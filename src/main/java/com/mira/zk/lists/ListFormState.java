@@ -0,0 +1,72 @@
+package com.mira.zk.lists;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Compact state of the list form which is replicated instead of objects and components of the main list:
+ * keys of listed objects, selection, active page and values changed by user in details section.
+ * Objects are reloaded by keys when the form is used after failover.
+ */
+public class ListFormState implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Object> keys;
+    private final Set<Object> selectedKeys;
+    private final Object selectedKey;
+    private final int activePage;
+    private final Map<String, Object> changes;
+
+    /**
+     * Creates state
+     *
+     * @param keys         keys of objects of main list in their order, {@code null} if list is loaded by pages
+     * @param selectedKeys keys of all selected objects
+     * @param selectedKey  key of object shown in details section. Can be {@code null}
+     * @param activePage   active page of main list
+     * @param changes      values changed by user in details section by paths of properties
+     */
+    public ListFormState(List<Object> keys, Set<Object> selectedKeys, Object selectedKey, int activePage,
+                         Map<String, Object> changes) {
+        this.keys = keys;
+        this.selectedKeys = selectedKeys;
+        this.selectedKey = selectedKey;
+        this.activePage = activePage;
+        this.changes = changes;
+    }
+
+    /**
+     * @return keys of objects of main list in their order, {@code null} if list is loaded by pages
+     */
+    public List<Object> getKeys() {
+        return keys;
+    }
+
+    /**
+     * @return keys of all selected objects
+     */
+    public Set<Object> getSelectedKeys() {
+        return selectedKeys;
+    }
+
+    /**
+     * @return key of object shown in details section. Can be {@code null}
+     */
+    public Object getSelectedKey() {
+        return selectedKey;
+    }
+
+    /**
+     * @return active page of main list
+     */
+    public int getActivePage() {
+        return activePage;
+    }
+
+    /**
+     * @return values changed by user in details section by paths of properties
+     */
+    public Map<String, Object> getChanges() {
+        return changes;
+    }
+}
@@ -1,6 +1,7 @@
 package com.mira.zk.lists;
 
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * View for list of objects
@@ -47,4 +48,44 @@ public interface ListFormView<T> {
      * @return index of selected object
      */
     int setSelectedObject(T object);
+
+    /**
+     * Returns all selected objects with changes made on the form. Only changed fields are applied to objects.
+     * @return selected objects
+     */
+    default Collection<T> getSelectedObjects() {
+        T selected = getSelectedObject();
+        return selected != null ? Collections.singletonList(selected) : Collections.<T>emptyList();
+    }
+
+    /**
+     * Runs action for every selected object, while {@link #getSelectedObject()} returns that object. Is used to
+     * apply single object operations of presenter to all selected objects.
+     * @param action action
+     */
+    default void forEachSelectedObject(Runnable action) {
+        if (getSelectedObject() != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Refreshes objects in the list
+     * @param objects new objects
+     */
+    default void refreshObjects(Collection<T> objects) {
+        for (T object : objects) {
+            refreshObject(object);
+        }
+    }
+
+    /**
+     * Removes objects from the list
+     * @param objects objects to remove
+     */
+    default void removeObjects(Collection<T> objects) {
+        for (T object : objects) {
+            removeObject(object);
+        }
+    }
 }
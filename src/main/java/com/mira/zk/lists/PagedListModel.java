@@ -0,0 +1,307 @@
+package com.mira.zk.lists;
+
+import org.zkoss.zul.AbstractListModel;
+import org.zkoss.zul.ListModelList;
+import org.zkoss.zul.event.ListDataEvent;
+
+import java.io.ObjectStreamException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+
+/**
+ * List model which loads objects page by page. When page is requested, adjacent pages are loaded in background,
+ * so sequential browsing is served from memory. Only a few last used pages are kept.
+ * <p>
+ * Changes of single objects are applied to loaded pages in place, see {@link #setLoaded(int, Object)},
+ * {@link #removeLoaded(int)} and {@link #add(Object)}, so the model isn't recreated and paging of listbox is kept.
+ * Methods which change the model should be called in the event thread.
+ *
+ * @param <T> object class
+ */
+public class PagedListModel<T> extends AbstractListModel<T> {
+    /**
+     * Default number of pages kept in memory
+     */
+    public static final int DEFAULT_CACHED_PAGES = 5;
+
+    private volatile int size;
+    private final int pageSize;
+    private final BiFunction<Integer, Integer, List<T>> loader;
+    private final Executor executor;
+    private final Map<Integer, CompletableFuture<List<T>>> pages;
+
+    /**
+     * Creates model
+     *
+     * @param size        total number of objects
+     * @param pageSize    number of objects on the page
+     * @param cachedPages number of pages kept in memory
+     * @param loader      function which loads objects by offset and count. Is called from background threads too.
+     * @param executor    executor for background loading of pages
+     */
+    public PagedListModel(int size, int pageSize, final int cachedPages,
+                          BiFunction<Integer, Integer, List<T>> loader, Executor executor) {
+        this.size = size;
+        this.pageSize = pageSize;
+        this.loader = loader;
+        this.executor = executor;
+        this.pages = new LinkedHashMap<Integer, CompletableFuture<List<T>>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<List<T>>> eldest) {
+                return size() > cachedPages;
+            }
+        };
+    }
+
+    @Override
+    public T getElementAt(int index) {
+        int page = index / pageSize;
+        List<T> objects = getPage(page);
+        prefetch(page + 1);
+        prefetch(page - 1);
+        int offset = index - page * pageSize;
+        if (offset >= objects.size() && index < size) {
+            //page became shorter after removal of its row and its next page wasn't loaded
+            objects = reload(page);
+        }
+        return offset < objects.size() ? objects.get(offset) : null;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return number of objects on the page
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return number of objects in loaded pages
+     */
+    public int getLoadedSize() {
+        int result = 0;
+        synchronized (pages) {
+            for (CompletableFuture<List<T>> future : pages.values()) {
+                if (future.isDone() && !future.isCompletedExceptionally()) {
+                    result += future.join().size();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Searches object among loaded pages only.
+     *
+     * @param object     object to search
+     * @param comparator comparator which defines equality of objects. If {@code null}, then {@code equals} is used.
+     * @return index of object or -1, if object is not found in loaded pages
+     */
+    public int indexOfLoaded(Object object, Comparator comparator) {
+        synchronized (pages) {
+            for (Map.Entry<Integer, CompletableFuture<List<T>>> entry : pages.entrySet()) {
+                CompletableFuture<List<T>> future = entry.getValue();
+                if (future.isDone() && !future.isCompletedExceptionally()) {
+                    List<T> objects = future.join();
+                    for (int i = 0; i < objects.size(); i++) {
+                        T element = objects.get(i);
+                        if (comparator != null ? comparator.compare(element, object) == 0 : Objects.equals(element, object)) {
+                            return entry.getKey() * pageSize + i;
+                        }
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces loaded object.
+     *
+     * @param index  index of object, see {@link #indexOfLoaded(Object, Comparator)}
+     * @param object new object
+     */
+    public void setLoaded(int index, T object) {
+        int page = index / pageSize;
+        synchronized (pages) {
+            List<T> objects = getLoaded(page);
+            if (objects == null || index - page * pageSize >= objects.size()) {
+                return;
+            }
+            objects = new ArrayList<T>(objects);
+            objects.set(index - page * pageSize, object);
+            pages.put(page, CompletableFuture.completedFuture(objects));
+        }
+        fireEvent(ListDataEvent.CONTENTS_CHANGED, index, index);
+    }
+
+    /**
+     * Removes loaded object. Following loaded pages are shifted in place, pages after the first not loaded one
+     * are dropped and will be loaded on demand.
+     *
+     * @param index index of object, see {@link #indexOfLoaded(Object, Comparator)}
+     */
+    public void removeLoaded(int index) {
+        int page = index / pageSize;
+        synchronized (pages) {
+            List<T> current = getLoaded(page);
+            if (current == null || index - page * pageSize >= current.size()) {
+                return;
+            }
+            current = new ArrayList<T>(current);
+            current.remove(index - page * pageSize);
+            pages.put(page, CompletableFuture.completedFuture(current));
+            int lastPage = (size - 1) / pageSize;
+            for (int next = page + 1; next <= lastPage; next++) {
+                List<T> following = getLoaded(next);
+                if (following == null || following.isEmpty()) {
+                    for (int stale = next; stale <= lastPage; stale++) {
+                        pages.remove(stale);
+                    }
+                    break;
+                }
+                following = new ArrayList<T>(following);
+                current.add(following.remove(0));
+                pages.put(next, CompletableFuture.completedFuture(following));
+                current = following;
+            }
+            size--;
+        }
+        fireEvent(ListDataEvent.INTERVAL_REMOVED, index, index);
+    }
+
+    /**
+     * Appends object to the end of the list. It's added to the last page, if the page is loaded.
+     *
+     * @param object new object
+     */
+    public void add(T object) {
+        int index;
+        synchronized (pages) {
+            index = size;
+            int page = index / pageSize;
+            List<T> objects = getLoaded(page);
+            if (objects != null && objects.size() == index - page * pageSize) {
+                objects = new ArrayList<T>(objects);
+                objects.add(object);
+                pages.put(page, CompletableFuture.completedFuture(objects));
+            }
+            size++;
+        }
+        fireEvent(ListDataEvent.INTERVAL_ADDED, index, index);
+    }
+
+    /**
+     * Changes total number of objects and drops loaded pages, e.g. when objects were added or removed in unknown
+     * places. Model itself is kept, so listbox keeps its paging, and only shown pages are loaded again.
+     *
+     * @param size new total number of objects
+     */
+    public void reset(int size) {
+        int old;
+        synchronized (pages) {
+            pages.clear();
+            old = this.size;
+            this.size = size;
+        }
+        if (size < old) {
+            fireEvent(ListDataEvent.INTERVAL_REMOVED, size, old - 1);
+        } else if (size > old) {
+            fireEvent(ListDataEvent.INTERVAL_ADDED, old, size - 1);
+        }
+        fireEvent(ListDataEvent.CONTENTS_CHANGED, -1, -1);
+    }
+
+    /**
+     * Loaded pages and loader aren't serialized. Empty model is written instead,
+     * pages are reloaded by {@link ZkListFormBuilder} from its compact state after deserialization
+     * in any mode of replication.
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        return new ListModelList<T>();
+    }
+
+    /**
+     * Returns objects of the page. Waits for background loading if page is being prefetched.
+     */
+    private List<T> getPage(int page) {
+        CompletableFuture<List<T>> future;
+        synchronized (pages) {
+            future = pages.get(page);
+        }
+        if (future != null) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                //prefetch has failed, so page is loaded once again
+            }
+        }
+        return reload(page);
+    }
+
+    /**
+     * Loads the page and replaces its cached objects
+     */
+    private List<T> reload(int page) {
+        List<T> objects = load(page);
+        synchronized (pages) {
+            pages.put(page, CompletableFuture.completedFuture(objects));
+        }
+        return objects;
+    }
+
+    /**
+     * Returns objects of the page, if it's loaded. Should be called under lock of pages.
+     */
+    private List<T> getLoaded(int page) {
+        CompletableFuture<List<T>> future = pages.get(page);
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    /**
+     * Starts background loading of the page, if it's not loaded yet.
+     */
+    private void prefetch(final int page) {
+        if (page < 0 || page * pageSize >= size) {
+            return;
+        }
+        final CompletableFuture<List<T>> future = new CompletableFuture<>();
+        synchronized (pages) {
+            if (pages.containsKey(page)) {
+                return;
+            }
+            pages.put(page, future);
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(load(page));
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            //executor is busy, page will be loaded on demand
+            synchronized (pages) {
+                pages.remove(page, future);
+            }
+        }
+    }
+
+    private List<T> load(int page) {
+        int offset = page * pageSize;
+        List<T> objects = loader.apply(offset, Math.min(pageSize, size - offset));
+        return objects != null ? objects : Collections.<T>emptyList();
+    }
+}
@@ -0,0 +1,110 @@
+package com.mira.zk.lists;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Applies changes of objects to main list in paged mode. Rows of loaded pages are found by keys of objects and
+ * updated in place, see {@link PagedListModel}. Pages are dropped only when rows are added or removed in unknown
+ * places, and the model itself is never recreated, so listbox keeps its paging.
+ *
+ * @param <T> class of objects
+ */
+class PagedListUpdater<T> {
+    private final PagedListModel<T> model;
+    private final Function<T, Object> keyOf;
+
+    /**
+     * Creates updater
+     *
+     * @param model model of main list
+     * @param keyOf returns key of object, see {@link ListFormPresenter#getKey(Object)}
+     */
+    PagedListUpdater(PagedListModel<T> model, Function<T, Object> keyOf) {
+        this.model = model;
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Finds object with specified key among loaded pages
+     *
+     * @param key key of the object
+     * @return index of the object or -1, if it isn't loaded
+     */
+    int indexOf(Object key) {
+        Comparator<Object> byKey = (element, k) -> Objects.equals(keyOf.apply((T) element), k) ? 0 : 1;
+        return model.indexOfLoaded(key, byKey);
+    }
+
+    /**
+     * Replaces loaded objects. Other objects will be loaded fresh, when their pages are shown.
+     *
+     * @param objects changed objects
+     * @return are all objects found among loaded pages
+     */
+    boolean refresh(Collection<T> objects) {
+        boolean found = true;
+        for (T object : objects) {
+            int index = indexOf(keyOf.apply(object));
+            if (index >= 0) {
+                model.setLoaded(index, object);
+            } else {
+                found = false;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Removes objects. Rows of loaded pages are removed in place, other objects only decrease total number
+     * of objects, and pages are loaded again on demand.
+     *
+     * @param keys keys of removed objects
+     * @return index of the first removed row or -1, if no row is loaded
+     */
+    int remove(Collection<?> keys) {
+        int first = -1;
+        int missed = 0;
+        for (Object key : keys) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                model.removeLoaded(index);
+                first = first < 0 ? index : Math.min(first, index);
+            } else {
+                missed++;
+            }
+        }
+        if (missed > 0) {
+            model.reset(Math.max(model.getSize() - missed, 0)); //неизвестно, где были строки
+        }
+        return first;
+    }
+
+    /**
+     * Applies polled changes. Objects are counted again only if some changes are outside of loaded pages,
+     * and pages are dropped only if the count has changed.
+     *
+     * @param changes polled changes
+     * @param counter counts objects, e.g. {@link ListFormPresenter#countObjects()}
+     */
+    void apply(ListFormChanges<T> changes, IntSupplier counter) {
+        boolean outside = !refresh(changes.getChangedObjects()); //новые объекты или объекты незагруженных страниц
+        for (Object key : changes.getRemovedKeys()) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                model.removeLoaded(index);
+            } else {
+                outside = true;
+            }
+        }
+        if (outside) {
+            int count = counter.getAsInt();
+            if (count != model.getSize()) {
+                model.reset(count); //строки сдвинулись в неизвестном месте
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.mira.zk.lists;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of formatted cells of list rows. Rows are identified by key of object and its version.
+ * Keys are held strongly, so they should be identifiers rather than objects themselves.
+ * Least recently used rows are evicted first.
+ */
+public class RowRenderCache {
+    private final Map<Object, Entry> entries;
+
+    /**
+     * Creates cache
+     *
+     * @param capacity maximum number of cached rows
+     */
+    public RowRenderCache(final int capacity) {
+        this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns cached cells of the row
+     *
+     * @param key     key of object
+     * @param version version of object. Can be {@code null}
+     * @return cached cells or {@code null}, if row is not cached or it's version differs
+     */
+    public String[] get(Object key, Object version) {
+        Entry entry = entries.get(key);
+        return entry != null && Objects.equals(entry.version, version) ? entry.cells : null;
+    }
+
+    /**
+     * Caches cells of the row
+     *
+     * @param key     key of object
+     * @param version version of object. Can be {@code null}
+     * @param cells   formatted cells
+     */
+    public void put(Object key, Object version, String[] cells) {
+        entries.put(key, new Entry(version, cells));
+    }
+
+    /**
+     * Returns cached cells of the element of main model or formats and caches them. Rows of
+     * {@link ColumnarListModel} are cached by their keys. Other objects are cached by key and version from
+     * presenter and only if the version is known: without version object could change in place unnoticed,
+     * and without separate key the cache would hold the object itself.
+     *
+     * @param data      element of main model
+     * @param presenter presenter of the form
+     * @param formatter formats cells of the element
+     * @param <T>       class of objects
+     * @return cells of the row
+     */
+    public <T> String[] getCells(Object data, ListFormPresenter<T> presenter, Function<Object, String[]> formatter) {
+        Object key;
+        Object version = null;
+        if (data instanceof ColumnarListModel.Row) {
+            key = ((ColumnarListModel.Row) data).getKey();
+        } else {
+            version = presenter.getVersion((T) data);
+            key = version != null ? presenter.getKey((T) data) : null;
+            if (key == data) {
+                key = null;
+            }
+        }
+        String[] cells = key != null ? get(key, version) : null;
+        if (cells == null) {
+            cells = formatter.apply(data);
+            if (key != null) {
+                put(key, version, cells);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Removes row from the cache
+     *
+     * @param key key of object
+     */
+    public void invalidate(Object key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all rows from the cache
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return number of cached rows
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+        private final Object version;
+        private final String[] cells;
+
+        Entry(Object version, String[] cells) {
+            this.version = version;
+            this.cells = cells;
+        }
+    }
+}
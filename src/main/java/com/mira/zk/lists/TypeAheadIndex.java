@@ -0,0 +1,228 @@
+package com.mira.zk.lists;
+
+import com.mira.zk.PrefixSearch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static com.mira.zk.PrefixSearch.normalize;
+
+/**
+ * Index of rows of the list by text of the primary sort column for type-ahead navigation. Texts are kept in a search
+ * tree ordered by text, and every subtree knows its first row in order of the list, so the first row with typed prefix
+ * is found in logarithmic time regardless of order of the list itself (e.g. case-sensitive or numeric sort).
+ * <p>
+ * Index follows changes of the list by {@link #insert(int, Object)}, {@link #remove(int)} and {@link #set(int, Object)}
+ * without rebuilding. Rows are ordered by labels, which don't change when other rows are inserted or removed.
+ */
+public class TypeAheadIndex {
+    private static final long LABEL_STEP = 1L << 31;
+
+    /**
+     * Entries in order of rows of the list, their labels grow in this order
+     */
+    private final List<Entry> rows;
+    private final Random random = new Random();
+    private Entry root;
+
+    /**
+     * Creates index
+     *
+     * @param values values of the column in order of rows
+     */
+    public TypeAheadIndex(Object[] values) {
+        rows = new ArrayList<Entry>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            Entry entry = new Entry(normalize(values[i]), (i + 1) * LABEL_STEP, random.nextInt());
+            rows.add(entry);
+            insertEntry(entry);
+        }
+    }
+
+    /**
+     * Finds the first row which text starts with specified prefix. Case is ignored.
+     *
+     * @param prefix typed prefix
+     * @return index of row or -1, if nothing is found
+     */
+    public int find(String prefix) {
+        String text = normalize(prefix);
+        if (text.isEmpty()) {
+            return -1;
+        }
+        //дерево делится на тексты до префикса, с префиксом и после него
+        Entry[] less = split(root, entry -> entry.text.compareTo(text) < 0);
+        Entry[] matching = split(less[1], entry -> entry.text.startsWith(text));
+        Entry first = matching[0] != null ? matching[0].first : null;
+        root = merge(less[0], merge(matching[0], matching[1]));
+        return first != null ? indexOf(first) : -1;
+    }
+
+    /**
+     * Adds row to the index
+     *
+     * @param index index of new row
+     * @param value value of the column in new row
+     */
+    public void insert(int index, Object value) {
+        long previous = index > 0 ? rows.get(index - 1).label : 0;
+        long next = index < rows.size() ? rows.get(index).label : previous + 2 * LABEL_STEP;
+        if (next - previous < 2 || previous > Long.MAX_VALUE / 2) {
+            relabel();
+            previous = index > 0 ? rows.get(index - 1).label : 0;
+            next = index < rows.size() ? rows.get(index).label : previous + 2 * LABEL_STEP;
+        }
+        Entry entry = new Entry(normalize(value), previous + (next - previous) / 2, random.nextInt());
+        rows.add(index, entry);
+        insertEntry(entry);
+    }
+
+    /**
+     * Removes row from the index
+     *
+     * @param index index of removed row
+     */
+    public void remove(int index) {
+        removeEntry(rows.remove(index));
+    }
+
+    /**
+     * Changes value of the row
+     *
+     * @param index index of the row
+     * @param value new value of the column
+     */
+    public void set(int index, Object value) {
+        Entry entry = rows.get(index);
+        String text = normalize(value);
+        if (!text.equals(entry.text)) {
+            removeEntry(entry);
+            entry.text = text;
+            insertEntry(entry);
+        }
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    private int indexOf(Entry entry) {
+        int low = 0;
+        int high = rows.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long label = rows.get(middle).label;
+            if (label < entry.label) {
+                low = middle + 1;
+            } else if (label > entry.label) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Spreads labels evenly, when there is no room between neighbours. Order of labels isn't changed,
+     * so the tree stays valid.
+     */
+    private void relabel() {
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).label = (i + 1) * LABEL_STEP;
+        }
+    }
+
+    private void insertEntry(Entry entry) {
+        Entry[] parts = split(root, other -> compare(other, entry) < 0);
+        root = merge(merge(parts[0], entry), parts[1]);
+    }
+
+    private void removeEntry(Entry entry) {
+        Entry[] parts = split(root, other -> compare(other, entry) < 0);
+        Entry[] rest = split(parts[1], other -> compare(other, entry) <= 0);
+        root = merge(parts[0], rest[1]);
+        entry.left = null;
+        entry.right = null;
+        entry.update();
+    }
+
+    private static int compare(Entry a, Entry b) {
+        int result = a.text.compareTo(b.text);
+        return result != 0 ? result : Long.compare(a.label, b.label);
+    }
+
+    /**
+     * Splits tree into entries which match the condition and following entries, which don't.
+     * Condition should be true for some leading entries in order of the tree and false for the rest.
+     */
+    private static Entry[] split(Entry node, Predicate<Entry> leading) {
+        if (node == null) {
+            return new Entry[2];
+        }
+        Entry[] result;
+        if (leading.test(node)) {
+            result = split(node.right, leading);
+            node.right = result[0];
+            result[0] = node;
+        } else {
+            result = split(node.left, leading);
+            node.left = result[1];
+            result[1] = node;
+        }
+        node.update();
+        return result;
+    }
+
+    private static Entry merge(Entry left, Entry right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        } else if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    /**
+     * Row in the tree of texts (treap)
+     */
+    private static class Entry {
+        private String text;
+        private long label;
+        private final int priority;
+        private Entry left;
+        private Entry right;
+        /**
+         * Entry of the subtree which row is the first in the list
+         */
+        private Entry first = this;
+
+        Entry(String text, long label, int priority) {
+            this.text = text;
+            this.label = label;
+            this.priority = priority;
+        }
+
+        void update() {
+            first = this;
+            if (left != null && left.first.label < first.label) {
+                first = left.first;
+            }
+            if (right != null && right.first.label < first.label) {
+                first = right.first;
+            }
+        }
+    }
+}
@@ -2,24 +2,78 @@ package com.mira.zk.lists;
 
 import com.mira.utils.ClassUtils;
 import com.mira.utils.comparators.MultiPropertyComparator;
+import com.mira.zk.SharedListModel;
 import com.mira.zk.ZkComponents;
+import com.mira.zk.ZkUtils;
+import com.mira.zk.ZkUtilsImpl;
+import com.mira.zk.components.AutocompleteCombo;
+import com.mira.zk.components.LookupProvider;
 import org.springframework.beans.support.MutableSortDefinition;
 import org.springframework.beans.support.SortDefinition;
+import org.zkoss.util.media.Media;
 import org.zkoss.zk.ui.Component;
+import org.zkoss.zk.ui.Desktop;
+import org.zkoss.zk.ui.Executions;
 import org.zkoss.zk.ui.HtmlBasedComponent;
+import org.zkoss.zk.ui.event.CheckEvent;
 import org.zkoss.zk.ui.event.Event;
 import org.zkoss.zk.ui.event.EventListener;
 import org.zkoss.zk.ui.event.Events;
 import org.zkoss.zk.ui.event.SelectEvent;
+import org.zkoss.zk.ui.event.SerializableEventListener;
+import org.zkoss.zk.ui.event.UploadEvent;
 import org.zkoss.zk.ui.util.Clients;
 import org.zkoss.zul.*;
+import org.zkoss.zul.Timer;
+import org.zkoss.zul.event.ListDataEvent;
+import org.zkoss.zul.ext.Selectable;
 
+import javax.servlet.http.Cookie;
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class ZkListFormBuilder<T> implements ListFormView<T> {
+public class ZkListFormBuilder<T> implements ListFormView<T>, Serializable {
+  private static final long serialVersionUID = 1L;
 
-  private final Logger log = Logger.getLogger(getClass().getName());
+  /**
+   * Echo event for appending next chunk of rows in progressive mode
+   */
+  protected static final String ON_APPEND_ROWS = "onAppendRows";
+
+  /**
+   * Event with typed prefix for type-ahead navigation in main list
+   */
+  protected static final String ON_TYPE_AHEAD = "onTypeAhead";
+
+  /**
+   * Client script which collects typed characters and sends them to the server after a short pause
+   */
+  private static final String TYPE_AHEAD_SCRIPT = "var e = event.domEvent, c = e ? e.which : 0, w = this;"
+      + "var now = new Date().getTime(), typed = now - (w._typeAheadTime || 0) < 1000 ? w._typeAhead || '' : '';"
+      //пробел без начатого текста оставляем списку, а внутри текста он разделяет слова
+      + "if ((c > 32 || c == 32 && typed) && !e.ctrlKey && !e.altKey && !e.metaKey) {"
+      + "w._typeAhead = typed + String.fromCharCode(c);"
+      + "w._typeAheadTime = now;"
+      + "clearTimeout(w._typeAheadTimer);"
+      + "w._typeAheadTimer = setTimeout(function () {"
+      + "zAu.send(new zk.Event(w, '" + ON_TYPE_AHEAD + "', w._typeAhead, {toServer: true}));"
+      + "}, 300);}";
+
+  /**
+   * Number of rows prefetched at once, when main list isn't paged
+   */
+  protected static final int DEFAULT_PREFETCH_SIZE = 50;
+
+  /**
+   * Echo event for showing the latest selected object in latest-wins selection mode
+   */
+  protected static final String ON_SHOW_SELECTION = "onShowSelection";
+
+  private transient Logger log = Logger.getLogger(getClass().getName());
 
   /**
    * Main component. Holder for all other created controls.
@@ -27,9 +81,14 @@ public class ZkListFormBuilder<T> implements ListFormView<T> {
   protected HtmlBasedComponent parent;
 
   /**
-   * Presenter for the list form
+   * Layout of the form, created by {@link #build()}. Is {@code null} if form isn't built or is disposed.
+   */
+  protected Borderlayout layout;
+
+  /**
+   * Presenter for the list form. Is serialized only if it's serializable, see {@link #restore}.
    */
-  protected ListFormPresenter<T> presenter;
+  protected transient ListFormPresenter<T> presenter;
   /**
    * Main list of editing objects.
    */
@@ -38,12 +97,12 @@ public class ZkListFormBuilder<T> implements ListFormView<T> {
   /**
    * Comparator for sorting objects in main list
    */
-  protected Comparator<T> objectComparator;
+  protected transient Comparator<T> objectComparator;
 
   /**
-   * List of columns for main list.
+   * List of columns for main list. Is serialized only if it's serializable, see {@link #restore}.
    */
-  protected List<ColumnInfo> columns;
+  protected transient List<ColumnInfo> columns;
 
   /**
    * Component holder of controls for editing concrete object.
@@ -52,11 +111,23 @@ public class ZkListFormBuilder<T> implements ListFormView<T> {
   /**
    * Selected object
    */
-  protected T selected;
+  protected transient T selected;
   /**
    * Map of fields and controls for editing this fields.
    */
   protected Map<String, Component> propertyEditors = new HashMap<String, Component>();
+  /**
+   * Labels of read-only fields by their metadata. They are filled from object, but never written back.
+   */
+  protected transient Map<FieldInfo, Label> readOnlyLabels = new IdentityHashMap<FieldInfo, Label>();
+  /**
+   * Labels of read-only fields by indexes of fields after deserialization, until fields are restored
+   */
+  private transient Map<Integer, Label> restoredLabels;
+  /**
+   * Values last pushed to editors by paths of properties
+   */
+  private transient Map<String, PushedValue> pushedValues = new HashMap<String, PushedValue>();
   /**
    * Add new object button
    */
@@ -69,11 +140,207 @@ public class ZkListFormBuilder<T> implements ListFormView<T> {
    * Delete selected object button
    */
   protected Button deleteButton;
+  /**
+   * Import objects from CSV button. Is {@code null} if import is off.
+   */
+  protected Button importButton;
+
+  /**
+   * Fields metadata. Is serialized only if it's serializable, see {@link #restore}.
+   */
+  private transient List<FieldInfo> fields;
+
+  /**
+   * Name of the form for monitoring
+   */
+  protected String name;
+
+  /**
+   * If true, then main list keeps only values of columns in {@link ColumnarListModel}
+   */
+  protected boolean columnarStore;
+
+  /**
+   * Cache of formatted cells of main list. Is {@code null} if caching is off.
+   */
+  protected transient RowRenderCache renderCache;
+  private int renderCacheSize;
+
+  /**
+   * Number of objects on the page of main list in paged mode, 0 if paged mode is off.
+   */
+  protected int pageSize;
+
+  /**
+   * Executor for background tasks of the form
+   */
+  protected transient Executor executor;
+
+  /**
+   * Shared executor for forms without own executor
+   */
+  private static ExecutorService defaultExecutor;
+
+  /**
+   * Executor for import of files
+   */
+  protected transient Executor importExecutor;
+
+  /**
+   * Shared executor for imports of forms without own import executor
+   */
+  private static ExecutorService defaultImportExecutor;
+
+  /**
+   * If true, then objects are saved in background with optimistic update of main list
+   */
+  protected boolean asyncSave;
+
+  /**
+   * Useful methods for notifications
+   */
+  protected transient ZkUtils zkUtils;
+
+  /**
+   * If true, then several objects could be selected in main list
+   */
+  protected boolean multipleSelection;
+
+  /**
+   * If true, then objects could be imported from CSV
+   */
+  protected boolean importEnabled;
+
+  /**
+   * Number of rows rendered at once in progressive mode, 0 if progressive mode is off
+   */
+  protected int progressiveChunkSize;
+
+  /**
+   * Objects which are not appended to main list yet in progressive mode
+   */
+  private transient List<T> pendingRows;
+
+  /**
+   * Monitor of memory statistics, see {@link #getMemoryStats()}
+   */
+  private transient ListFormMemoryMonitor memoryMonitor = createMemoryMonitor();
+
+  /**
+   * Number of the last {@link #setObjects(Collection)} call. Chunks of previous calls are ignored.
+   */
+  private int rowsGeneration;
+
+  /**
+   * Row added or changed in main list before asynchronous saving is confirmed by presenter
+   */
+  private transient T optimistic;
+
+  /**
+   * Object being saved asynchronously. Is returned by {@link #getSelectedObject()} in background thread.
+   */
+  private transient ThreadLocal<T> asyncSelected = new ThreadLocal<T>();
+
+  /**
+   * If true, then main list could be filtered by values of fields with {@link FieldInfo#getValues()}
+   */
+  protected boolean facetFilter;
+
+  /**
+   * Index of all objects by facet fields. Is {@code null} if facet filter is off or objects aren't loaded.
+   */
+  private transient FacetIndex<T> facetIndex;
+
+  /**
+   * Values selected in facet panel by paths of fields
+   */
+  protected Map<String, Set<Object>> facetSelection = new HashMap<String, Set<Object>>();
+
+  /**
+   * Checkboxes of facet panel by paths of fields and values
+   */
+  private Map<String, Map<Object, Checkbox>> facetCheckboxes = new LinkedHashMap<String, Map<Object, Checkbox>>();
+
+  /**
+   * Interval of polling changes of the list in milliseconds, 0 if auto-refresh is off
+   */
+  protected int autoRefreshInterval;
+
+  /**
+   * Timer of auto-refresh. Is {@code null} if auto-refresh is off.
+   */
+  protected Timer refreshTimer;
+
+  /**
+   * Keeps token of the state of data shown in main list
+   */
+  private transient ListChangePoller<T> changePoller = new ListChangePoller<T>();
+
+  /**
+   * If true, then typing in main list jumps to the row which starts with typed text
+   */
+  protected boolean typeAhead;
+
+  /**
+   * Index of main list for type-ahead navigation. Is built on demand and follows changes of rows of main model.
+   */
+  private transient TypeAheadIndex typeAheadIndex;
+
+  /**
+   * If true, then user could hide columns of main list
+   */
+  protected boolean columnChooser;
+
+  /**
+   * Indexes of hidden columns of main list
+   */
+  protected BitSet hiddenColumns = new BitSet();
+
+  /**
+   * Headers of all columns of main list, including hidden ones
+   */
+  private Listheader[] listheaders;
+
+  /**
+   * Popup menu for choosing visible columns. Is {@code null} if column chooser is off.
+   */
+  protected Menupopup columnsPopup;
+
+  /**
+   * Renderer of main list
+   */
+  private ObjectListRenderer objectListRenderer;
+
+  /**
+   * Delay of showing selected object in details section: negative - immediately, 0 - latest-wins,
+   * positive - after quiet period in milliseconds
+   */
+  protected int selectionDelay = -1;
 
   /**
-   * Fields metadata
+   * Timer which checks quiet period of selection. Is {@code null} if selection delay isn't positive.
    */
-  private List<FieldInfo> fields;
+  protected Timer selectionTimer;
+
+  /**
+   * Element of main model selected by user, but not shown in details section yet
+   */
+  private transient Object pendingSelection;
+
+  /**
+   * Time of the last selection by user
+   */
+  private transient long lastSelectionTime;
+
+  /**
+   * If true, then only compact state of the form is replicated with session
+   */
+  protected boolean replicable;
+
+  /**
+   * Replicated state which is not restored yet. Is {@code null} if form is up to date.
+   */
+  private transient ListFormState restoredState;
 
   /**
    * Регистрирует свойство редактируемого объекта с привязанным к нему редактором.
@@ -122,406 +389,2275 @@ public class ZkListFormBuilder<T> implements ListFormView<T> {
   }
 
   /**
-   * @return list form presenter
+   * @return name of the form for monitoring. By default it's simple name of object class.
    */
-  public ListFormPresenter<T> getPresenter() {
-    return presenter;
+  public String getName() {
+    if (name != null) {
+      return name;
+    }
+    return presenter != null ? presenter.getObjectClass().getSimpleName() : getClass().getSimpleName();
   }
 
   /**
-   * Setts list for presenter
+   * Setts name of the form for monitoring
    *
-   * @param presenter presenter
+   * @param name name of the form
    */
-  public void setPresenter(ListFormPresenter<T> presenter) {
-    this.presenter = presenter;
+  public void setName(String name) {
+    this.name = name;
   }
 
   /**
-   * @return main component. Holder for all others.
+   * @return does main list keep only values of columns instead of objects
    */
-  public HtmlBasedComponent getParent() {
-    return parent;
+  public boolean isColumnarStore() {
+    return columnarStore;
   }
 
   /**
-   * Setts main component
+   * Setts mode of main list. If true, then main list keeps only values of columns in {@link ColumnarListModel},
+   * and selected object is loaded through {@link ListFormPresenter#loadObject(Object)}. Is intended for big
+   * read-only lists. Presenter should override {@link ListFormPresenter#getKey(Object)} to return compact key
+   * (e.g. id) and {@link ListFormPresenter#loadObject(Object)} together with
+   * {@link ListFormPresenter#supportsLoadingByKey()}: default key is object itself, with it the model
+   * would keep all objects, so such presenter is rejected by {@link ColumnarListModel}.
    *
-   * @param parent main component
+   * @param columnarStore keep only values of columns
    */
-  public void setParent(HtmlBasedComponent parent) {
-    this.parent = parent;
+  public void setColumnarStore(boolean columnarStore) {
+    this.columnarStore = columnarStore;
   }
 
   /**
-   * @return main list's header metadata
+   * @return maximum number of rows in the cache of formatted cells, 0 if caching is off
    */
-  public List<ColumnInfo> getColumns() {
-    return columns;
+  public int getRenderCacheSize() {
+    return renderCacheSize;
   }
 
   /**
-   * Setts main list header metadata.
+   * Setts size of the cache of formatted cells of main list. Cached rows are rendered without reading
+   * properties and formatting values until object is refreshed or removed, or its version
+   * ({@link ListFormPresenter#getVersion(Object)}) is changed. Objects are cached by their keys
+   * ({@link ListFormPresenter#getKey(Object)}), so rows are cached only if presenter supports both keys and versions,
+   * otherwise cached cells could be stale and cache would hold objects themselves.
    *
-   * @param columns new metadata
+   * @param renderCacheSize maximum number of cached rows, 0 turns caching off
    */
-  public void setColumns(List<ColumnInfo> columns) {
-    this.columns = columns;
+  public void setRenderCacheSize(int renderCacheSize) {
+    this.renderCacheSize = renderCacheSize;
+    this.renderCache = renderCacheSize > 0 ? new RowRenderCache(renderCacheSize) : null;
   }
 
   /**
-   * Creates builder
+   * @return number of objects on the page of main list, 0 if paged mode is off
+   */
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Setts paged mode of main list. In paged mode objects are loaded page by page through
+   * {@link ListFormPresenter#countObjects()} and {@link ListFormPresenter#loadObjects(int, int)},
+   * adjacent pages are prefetched in background, presenter should return {@code true} from
+   * {@link ListFormPresenter#supportsPaging()}. Should be called before {@link #build()}.
    *
-   * @param parent    main component
-   * @param presenter list form presenter
-   * @param columns   metadata for main list
-   * @param fields    metadata for editing properties
+   * @param pageSize number of objects on the page, 0 turns paged mode off
    */
-  public ZkListFormBuilder(HtmlBasedComponent parent, ListFormPresenter<T> presenter,
-                           List<ColumnInfo> columns, List<FieldInfo> fields) {
-    this.parent = parent;
-    this.presenter = presenter;
-    this.fields = fields;
-    this.columns = columns;
+  public void setPageSize(int pageSize) {
+    this.pageSize = pageSize;
   }
 
   /**
-   * Initialization of all components on holder
+   * @return executor for background tasks of the form
    */
-  protected void initGUI() {
-    parent.setHeight("100%");
-    parent.setWidth("100%");
+  public Executor getExecutor() {
+    return executor != null ? executor : getDefaultExecutor();
+  }
 
-    Borderlayout mainLayout = new Borderlayout();
-    mainLayout.setHeight("100%");
-    mainLayout.setWidth("100%");
-    parent.appendChild(mainLayout);
+  /**
+   * Setts executor for background tasks of the form. If it's not set, then small shared executor is used.
+   *
+   * @param executor executor
+   */
+  public void setExecutor(Executor executor) {
+    this.executor = executor;
+  }
 
-    West listHolder = new West();
-    listHolder.setSize("30%");
-    listHolder.setTitle("Список");
-    listHolder.setCollapsible(true);
-    listHolder.setSplittable(true);
-    mainLayout.appendChild(listHolder);
-    initObjectsListbox();
-    listHolder.appendChild(objectsListbox);
+  /**
+   * @return executor for import of files
+   */
+  public Executor getImportExecutor() {
+    return importExecutor != null ? importExecutor : getDefaultImportExecutor();
+  }
 
-    Center center = new Center();
-    mainLayout.appendChild(center);
-    center.appendChild(detailHolder = new Div());
-    initDetailsGUI();
-    initControlPanel();
+  /**
+   * Setts executor for import of files. Import of big file takes minutes, so it runs apart from
+   * {@link #getExecutor()}, which loads pages and saves objects. If it's not set, then small shared executor
+   * for imports is used.
+   *
+   * @param importExecutor executor
+   */
+  public void setImportExecutor(Executor importExecutor) {
+    this.importExecutor = importExecutor;
   }
 
   /**
-   * Builds list form.
+   * @return shared bounded executor for imports of the forms
    */
-  public void build() {
-    if (parent.isVisible()) {
-      presenter.setView(this);
-      initComparator();
-      initGUI();
-      refresh();
+  protected static synchronized ExecutorService getDefaultImportExecutor() {
+    if (defaultImportExecutor == null) {
+      ThreadPoolExecutor result = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(8), runnable -> {
+        Thread thread = new Thread(runnable, "list-form-import");
+        thread.setDaemon(true);
+        return thread;
+      });
+      result.allowCoreThreadTimeOut(true);
+      defaultImportExecutor = result;
     }
+    return defaultImportExecutor;
   }
 
   /**
-   * Initializes comparator if it's not set
+   * @return shared bounded executor for background tasks of the forms
    */
-  private void initComparator() {
-    if (objectComparator == null) {
-      SortDefinition[] sortDefinitions = new SortDefinition[columns.size()];
-      for (int i = 0; i < columns.size(); i++) {
-        sortDefinitions[i] = new MutableSortDefinition(columns.get(i).getPath(), true, true);
-      }
-      objectComparator = new MultiPropertyComparator<>(sortDefinitions);
+  protected static synchronized ExecutorService getDefaultExecutor() {
+    if (defaultExecutor == null) {
+      ThreadPoolExecutor result = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(64), runnable -> {
+        Thread thread = new Thread(runnable, "list-form-background");
+        thread.setDaemon(true);
+        return thread;
+      });
+      result.allowCoreThreadTimeOut(true);
+      defaultExecutor = result;
     }
+    return defaultExecutor;
   }
 
   /**
-   * Initializes control panel with add, remove, edit buttons.
+   * @return are objects saved asynchronously
    */
-  protected void initControlPanel() {
-    Div div = new Div();
-    div.setSclass("buttonGroup");
-    addButton = new Button("Добавить", "/images/add 16.png");
-    addButton.addEventListener(Events.ON_CLICK, event -> saveNew());
-    div.appendChild(addButton);
-
-    editButton = new Button("Изменить", "/images/edit1 16.png");
-    editButton.addEventListener(Events.ON_CLICK, event -> save());
-    div.appendChild(editButton);
+  public boolean isAsyncSave() {
+    return asyncSave;
+  }
 
-    deleteButton = new Button("Удалить", "/images/delete 16.png");
-    deleteButton.addEventListener(Events.ON_CLICK, event -> delete());
-    div.appendChild(deleteButton);
+  /**
+   * Setts asynchronous saving mode. In this mode changes are applied to main list immediately,
+   * {@link ListFormPresenter#add()} and {@link ListFormPresenter#edit()} are called in background thread,
+   * and result is reported by notification. If presenter fails, then changes of main list are rolled back.
+   * Server push is enabled for the desktop of the form.
+   *
+   * @param asyncSave save asynchronously
+   */
+  public void setAsyncSave(boolean asyncSave) {
+    this.asyncSave = asyncSave;
+  }
 
-    detailHolder.appendChild(div);
+  /**
+   * @return could several objects be selected in main list
+   */
+  public boolean isMultipleSelection() {
+    return multipleSelection;
   }
 
   /**
-   * Возвращает список метаданных по колонкам, которые будут показываться
-   * в основном списке редактируемых объектов.
-   * Должен быть определён потоками.
+   * Setts multiple selection mode of main list. If several objects are selected, then delete and edit buttons
+   * work with all of them through {@link ListFormPresenter#deleteAll(ListFormView)} and
+   * {@link ListFormPresenter#updateAll(ListFormView)}.
+   * Should be called before {@link #build()}.
    *
-   * @return не может быть {@code null} или пустым.
+   * @param multipleSelection could several objects be selected
    */
+  public void setMultipleSelection(boolean multipleSelection) {
+    this.multipleSelection = multipleSelection;
+  }
 
+  /**
+   * @return could objects be imported from CSV
+   */
+  public boolean isImportEnabled() {
+    return importEnabled;
+  }
 
   /**
-   * Инициализация списка редактируемых объектов. Здесь происходит только
-   * создание заголовков списка и установка рендерера. Загрузка модели происходит
-   * в методе {@link #refresh() } после того, как все компоненты уже инициализированы.
+   * Setts availability of import from CSV. Uploaded file is read in background thread and objects are passed to
+   * {@link ListFormPresenter#importObjects(List)} in batches, presenter should return {@code true} from
+   * {@link ListFormPresenter#supportsImport()}. Should be called before {@link #build()}.
+   *
+   * @param importEnabled could objects be imported
    */
-  protected void initObjectsListbox() {
-    objectsListbox = new Listbox();
-    objectsListbox.setVflex(true);
-    objectsListbox.setFixedLayout(true);
+  public void setImportEnabled(boolean importEnabled) {
+    this.importEnabled = importEnabled;
+  }
+
+  /**
+   * @return number of rows rendered at once in progressive mode, 0 if progressive mode is off
+   */
+  public int getProgressiveChunkSize() {
+    return progressiveChunkSize;
+  }
+
+  /**
+   * Setts progressive mode of main list. In this mode {@link #setObjects(Collection)} renders only the first
+   * chunk of rows, other rows are appended chunk by chunk in following echo events, so desktop stays responsive
+   * while long list is filled.
+   *
+   * @param progressiveChunkSize number of rows in one chunk, 0 turns progressive mode off
+   */
+  public void setProgressiveChunkSize(int progressiveChunkSize) {
+    this.progressiveChunkSize = progressiveChunkSize;
+  }
+
+  /**
+   * @return could main list be filtered by values of fields
+   */
+  public boolean isFacetFilter() {
+    return facetFilter;
+  }
+
+  /**
+   * Setts facet filter. If it's on, then panel above main list shows values of every field with
+   * {@link FieldInfo#getValues()} with numbers of objects. Checked values filter main list: values of one field
+   * are combined by "or", different fields are combined by "and". Numbers are computed in one pass in
+   * {@link #setObjects(Collection)} and are updated in constant time on adding, refreshing and removing objects,
+   * see {@link FacetIndex}. Objects changed after filtering stay in main list until filter is changed.
+   * Isn't available in paged mode. Should be called before {@link #build()}.
+   *
+   * @param facetFilter filter main list by values of fields
+   */
+  public void setFacetFilter(boolean facetFilter) {
+    this.facetFilter = facetFilter;
+  }
+
+  /**
+   * @return paths of fields, which values are facets
+   */
+  protected List<String> getFacetPaths() {
+    List<String> result = new ArrayList<String>();
+    for (FieldInfo field : fields) {
+      if (field.getValues() != null) {
+        result.add(field.getPath());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Creates facet panel: group of checkboxes with values for every facet field.
+   *
+   * @return panel
+   */
+  protected Component createFacetPanel() {
+    Div panel = new Div();
+    for (FieldInfo field : fields) {
+      if (field.getValues() == null) {
+        continue;
+      }
+      final String path = field.getPath();
+      Groupbox groupbox = new Groupbox();
+      groupbox.appendChild(new Caption(field.getCaption()));
+      Map<Object, Checkbox> checkboxes = new LinkedHashMap<Object, Checkbox>();
+      for (final Map.Entry<Object, String> value : field.getValues().entrySet()) {
+        Checkbox checkbox = new Checkbox(value.getValue());
+        Set<Object> selection = facetSelection.get(path);
+        checkbox.setChecked(selection != null && selection.contains(value.getKey()));
+        listen(checkbox, Events.ON_CHECK, event -> {
+          Set<Object> values = facetSelection.computeIfAbsent(path, key -> new HashSet<Object>());
+          if (((CheckEvent) event).isChecked()) {
+            values.add(value.getKey());
+          } else {
+            values.remove(value.getKey());
+          }
+          applyFacetFilter();
+        });
+        checkboxes.put(value.getKey(), checkbox);
+        groupbox.appendChild(checkbox);
+      }
+      facetCheckboxes.put(path, checkboxes);
+      panel.appendChild(groupbox);
+    }
+    return panel;
+  }
+
+  /**
+   * Shows objects matching values checked in facet panel.
+   */
+  protected void applyFacetFilter() {
+    if (facetIndex != null) {
+      showObjects(facetIndex.filter(facetSelection));
+    }
+  }
+
+  /**
+   * Updates facet index and numbers of objects in facet panel.
+   *
+   * @param changed     added and changed objects
+   * @param removedKeys keys of removed objects
+   */
+  protected void updateFacets(Collection<T> changed, Collection<?> removedKeys) {
+    if (facetIndex == null) {
+      return;
+    }
+    for (T object : changed) {
+      facetIndex.put(object);
+    }
+    for (Object key : removedKeys) {
+      facetIndex.remove(key);
+    }
+    updateFacetCounts();
+  }
+
+  /**
+   * Shows numbers of objects with every value in facet panel.
+   */
+  protected void updateFacetCounts() {
+    for (FieldInfo field : fields) {
+      Map<Object, Checkbox> checkboxes = facetCheckboxes.get(field.getPath());
+      if (checkboxes != null) {
+        for (Map.Entry<Object, Checkbox> entry : checkboxes.entrySet()) {
+          int count = facetIndex != null ? facetIndex.getCount(field.getPath(), entry.getKey()) : 0;
+          entry.getValue().setLabel(String.format("%s (%d)", field.getValues().get(entry.getKey()), count));
+        }
+      }
+    }
+  }
+
+  /**
+   * @return interval of polling changes of the list in milliseconds, 0 if auto-refresh is off
+   */
+  public int getAutoRefreshInterval() {
+    return autoRefreshInterval;
+  }
+
+  /**
+   * Setts auto-refresh mode. In this mode changes of the list are polled by timer through
+   * {@link ListFormPresenter#loadChanges(Object)} with token from {@link ListFormPresenter#getChangeToken()},
+   * and only changed rows are applied to main list. If user is editing selected object, then details section isn't
+   * overwritten. Presenter should return {@code true} from {@link ListFormPresenter#supportsChanges()}.
+   * Should be called before {@link #build()}.
+   *
+   * @param autoRefreshInterval interval in milliseconds, 0 turns auto-refresh off
+   */
+  public void setAutoRefreshInterval(int autoRefreshInterval) {
+    this.autoRefreshInterval = autoRefreshInterval;
+  }
+
+  /**
+   * Polls changes of the list since the last token and applies them to main list. If presenter can't compute
+   * changes, then list is fully refreshed.
+   */
+  protected void pollChanges() {
+    if (optimistic != null) {
+      return; //дождёмся окончания асинхронного сохранения
+    }
+    ListFormChanges<T> changes = changePoller.poll(presenter);
+    if (changes == null) {
+      refresh();
+      return;
+    }
+    if (changes.isEmpty()) {
+      return;
+    }
+    if (isPaged()) {
+      changes.getChangedObjects().forEach(this::invalidateRenderCache);
+      applyPagedChanges(changes);
+      return;
+    }
+    flushPendingRows();
+    boolean editing = selected != null && !getDetailsChanges().isEmpty();
+    Object selectedKey = selected != null ? presenter.getKey(selected) : null;
+    List<T> processed = processObjects(changes.getChangedObjects());
+    applyProcessedChanges(processed, changes.getRemovedKeys());
+    if (!editing && selected != null && Objects.equals(presenter.getKey(selected), selectedKey)) {
+      for (T object : processed) {
+        if (Objects.equals(presenter.getKey(object), selectedKey)) {
+          showSelectedObject(object);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return does typing in main list jump to matching row
+   */
+  public boolean isTypeAhead() {
+    return typeAhead;
+  }
+
+  /**
+   * Setts type-ahead navigation in main list. Typed characters are collected on client and sent to the server
+   * after a short pause, then the first row which value of the first (primary sort) column starts with typed text
+   * is selected. Rows are found in {@link TypeAheadIndex}, which is built on demand and then follows added, removed
+   * and changed rows of main list. Isn't available in paged mode. Should be called before {@link #build()}.
+   *
+   * @param typeAhead jump to matching row on typing
+   */
+  public void setTypeAhead(boolean typeAhead) {
+    this.typeAhead = typeAhead;
+  }
+
+  /**
+   * Selects the first row of main list which value of the first column starts with typed prefix.
+   *
+   * @param prefix typed prefix
+   * @return index of selected row or -1, if nothing is found
+   */
+  protected int typeAhead(String prefix) {
+    TypeAheadIndex index = getTypeAheadIndex();
+    int found = index != null ? index.find(prefix) : -1;
+    if (found >= 0) {
+      flushPendingRows();
+      objectsListbox.setSelectedIndex(found);
+      selectElement(objectsListbox.getModel().getElementAt(found));
+      scrollToSelected();
+    }
+    return found;
+  }
+
+  /**
+   * Returns index of main list for type-ahead navigation, builds it if main list has changed.
+   *
+   * @return index or {@code null} in paged mode
+   */
+  protected TypeAheadIndex getTypeAheadIndex() {
+    ListModel model = objectsListbox.getModel();
+    if (model == null || isPaged()) {
+      return null;
+    }
+    if (typeAheadIndex == null) {
+      //строки, ещё не добавленные прогрессивным режимом, тоже участвуют в поиске
+      flushPendingRows();
+      Object[] values = new Object[model.getSize()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = getTypeAheadValue(model, i);
+      }
+      typeAheadIndex = new TypeAheadIndex(values);
+    }
+    return typeAheadIndex;
+  }
+
+  /**
+   * @param model model of main list
+   * @param index index of row
+   * @return value of the first column in the row
+   */
+  private Object getTypeAheadValue(ListModel model, int index) {
+    Object element = model.getElementAt(index);
+    return element instanceof ColumnarListModel.Row
+        ? ((ColumnarListModel.Row) element).getValue(0)
+        : ClassUtils.getValue(element, columns.get(0).getPath());
+  }
+
+  /**
+   * Applies change of main model to the index of type-ahead navigation, so the index isn't rebuilt.
+   *
+   * @param event change of main model
+   */
+  private void updateTypeAheadIndex(ListDataEvent event) {
+    TypeAheadIndex index = typeAheadIndex;
+    if (index == null) {
+      return;
+    }
+    ListModel model = event.getModel();
+    int from = event.getIndex0();
+    int to = event.getIndex1();
+    if (from < 0 || to < from) {
+      //изменился весь список, например после сортировки
+      typeAheadIndex = null;
+      return;
+    }
+    switch (event.getType()) {
+      case ListDataEvent.INTERVAL_ADDED:
+        for (int i = from; i <= to; i++) {
+          index.insert(i, getTypeAheadValue(model, i));
+        }
+        break;
+      case ListDataEvent.INTERVAL_REMOVED:
+        for (int i = to; i >= from; i--) {
+          index.remove(i);
+        }
+        break;
+      case ListDataEvent.CONTENTS_CHANGED:
+        for (int i = from; i <= to && i < model.getSize(); i++) {
+          index.set(i, getTypeAheadValue(model, i));
+        }
+        break;
+      default:
+        //изменение выбора, в том числе самим typeAhead, не меняет строк списка
+    }
+  }
+
+  /**
+   * @return could user hide columns of main list
+   */
+  public boolean isColumnChooser() {
+    return columnChooser;
+  }
+
+  /**
+   * Setts availability of column chooser. If it's on, then context menu of main list header allows user to hide
+   * and show columns. Hidden columns have no cells, their properties aren't read. Visible columns are saved
+   * in cookie, see {@link #getColumnsCookieName()}. Should be called before {@link #build()}.
+   *
+   * @param columnChooser could user hide columns
+   */
+  public void setColumnChooser(boolean columnChooser) {
+    this.columnChooser = columnChooser;
+  }
+
+  /**
+   * @param column index of column
+   * @return is column of main list visible
+   */
+  public boolean isColumnVisible(int column) {
+    return !hiddenColumns.get(column);
+  }
+
+  /**
+   * Shows or hides column of main list. Cells of the column are added to or removed from already rendered rows
+   * only, other rows are not rendered again. Choice is saved in cookie if column chooser is on.
+   * The last visible column can't be hidden.
+   *
+   * @param column  index of column
+   * @param visible should column be visible
+   */
+  public void setColumnVisible(int column, boolean visible) {
+    if (isColumnVisible(column) == visible || !visible && hiddenColumns.cardinality() >= columns.size() - 1) {
+      return;
+    }
+    hiddenColumns.set(column, !visible);
+    if (objectsListbox == null) {
+      return;
+    }
+    if (renderCache != null) {
+      renderCache.clear();
+    }
+    objectListRenderer.updateNestedPaths();
+    //позиция колонки среди видимых
+    int position = 0;
+    for (int i = 0; i < column; i++) {
+      position += isColumnVisible(i) ? 1 : 0;
+    }
+    Listhead head = objectsListbox.getListhead();
+    for (Listitem item : new ArrayList<Listitem>(objectsListbox.getItems())) {
+      if (item.isLoaded()) {
+        List<Component> cells = item.getChildren();
+        if (visible) {
+          Listcell cell = new Listcell(objectListRenderer.formatCell(elementOf(item), column));
+          item.insertBefore(cell, position < cells.size() ? cells.get(position) : null);
+        } else if (position < cells.size()) {
+          cells.get(position).detach();
+        }
+      }
+    }
+    if (visible) {
+      List<Component> headers = head.getChildren();
+      head.insertBefore(listheaders[column], position < headers.size() ? headers.get(position) : null);
+    } else {
+      listheaders[column].detach();
+    }
+    if (columnChooser) {
+      saveVisibleColumns();
+    }
+  }
+
+  /**
+   * @return name of cookie, which keeps visible columns of main list
+   */
+  protected String getColumnsCookieName() {
+    return "listForm." + getName() + ".columns";
+  }
+
+  /**
+   * Reads visible columns from cookie. Cookie of other set of columns is ignored.
+   */
+  protected void loadVisibleColumns() {
+    Cookie cookie = getZkUtils().getCookie(getColumnsCookieName());
+    String value = cookie != null ? cookie.getValue() : null;
+    if (value != null && value.length() == columns.size() && value.indexOf('1') >= 0) {
+      hiddenColumns.clear();
+      for (int i = 0; i < value.length(); i++) {
+        hiddenColumns.set(i, value.charAt(i) == '0');
+      }
+    }
+  }
+
+  /**
+   * Saves visible columns to cookie as string of '1' for visible and '0' for hidden columns.
+   */
+  protected void saveVisibleColumns() {
+    StringBuilder value = new StringBuilder(columns.size());
+    for (int i = 0; i < columns.size(); i++) {
+      value.append(isColumnVisible(i) ? '1' : '0');
+    }
+    Cookie cookie = new Cookie(getColumnsCookieName(), value.toString());
+    cookie.setMaxAge(365 * 24 * 60 * 60);
+    getZkUtils().setCookie(cookie);
+  }
+
+  /**
+   * Creates context menu of main list header with checkable item for every column.
+   *
+   * @return popup menu
+   */
+  protected Menupopup createColumnsPopup() {
+    Menupopup popup = new Menupopup();
+    for (int i = 0; i < columns.size(); i++) {
+      final int column = i;
+      Menuitem menuitem = new Menuitem(columns.get(i).getCaption());
+      menuitem.setCheckmark(true);
+      menuitem.setAutocheck(true);
+      menuitem.setChecked(isColumnVisible(i));
+      listen(menuitem, Events.ON_CHECK, event -> {
+        setColumnVisible(column, ((CheckEvent) event).isChecked());
+        ((Menuitem) event.getTarget()).setChecked(isColumnVisible(column));
+      });
+      popup.appendChild(menuitem);
+    }
+    return popup;
+  }
+
+  /**
+   * @return delay of showing selected object in details section
+   */
+  public int getSelectionDelay() {
+    return selectionDelay;
+  }
+
+  /**
+   * Setts delay of showing object selected by user in details section, so rapid navigation through main list
+   * (e.g. holding arrow key) doesn't fill details section for every row. If delay is negative, then object is
+   * shown immediately. If delay is 0, then latest selection wins: object is shown in echo event, and it's skipped,
+   * if user has selected another row meanwhile. If delay is positive, then object is shown only when there was no
+   * selection for specified period. Should be called before {@link #build()}.
+   *
+   * @param selectionDelay delay in milliseconds
+   */
+  public void setSelectionDelay(int selectionDelay) {
+    this.selectionDelay = selectionDelay;
+  }
+
+  /**
+   * @return is only compact state of the form replicated with session
+   */
+  public boolean isReplicable() {
+    return replicable;
+  }
+
+  /**
+   * Setts replication-friendly mode. In this mode objects of main list aren't serialized with desktop,
+   * only {@link ListFormState} is written: keys of objects, selection, active page and changed values of details
+   * section. After failover the form is restored on first event: objects are reloaded through
+   * {@link ListFormPresenter#reloadObjects(Collection)} (or {@link ListFormPresenter#loadObjects()}, if presenter
+   * can't reload them by keys). Presenter, columns and fields are replicated only if they are serializable,
+   * otherwise they should be passed to {@link #restore} after failover.
+   * {@link ListFormPresenter#getKey(Object)} should return compact serializable keys.
+   * Executor and utils aren't replicated, defaults are used after failover. Should be called before {@link #build()}.
+   *
+   * @param replicable replicate only compact state
+   */
+  public void setReplicable(boolean replicable) {
+    this.replicable = replicable;
+  }
+
+  /**
+   * @return useful methods for notifications
+   */
+  public ZkUtils getZkUtils() {
+    if (zkUtils == null) {
+      zkUtils = new ZkUtilsImpl();
+    }
+    return zkUtils;
+  }
+
+  /**
+   * Setts useful methods for notifications
+   *
+   * @param zkUtils utils
+   */
+  public void setZkUtils(ZkUtils zkUtils) {
+    this.zkUtils = zkUtils;
+  }
+
+  /**
+   * @return list form presenter
+   */
+  public ListFormPresenter<T> getPresenter() {
+    return presenter;
+  }
+
+  /**
+   * Setts list for presenter
+   *
+   * @param presenter presenter
+   */
+  public void setPresenter(ListFormPresenter<T> presenter) {
+    this.presenter = presenter;
+  }
+
+  /**
+   * @return main component. Holder for all others.
+   */
+  public HtmlBasedComponent getParent() {
+    return parent;
+  }
+
+  /**
+   * Setts main component
+   *
+   * @param parent main component
+   */
+  public void setParent(HtmlBasedComponent parent) {
+    this.parent = parent;
+  }
+
+  /**
+   * @return main list's header metadata
+   */
+  public List<ColumnInfo> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Setts main list header metadata.
+   *
+   * @param columns new metadata
+   */
+  public void setColumns(List<ColumnInfo> columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Creates builder
+   *
+   * @param parent    main component
+   * @param presenter list form presenter
+   * @param columns   metadata for main list
+   * @param fields    metadata for editing properties
+   */
+  public ZkListFormBuilder(HtmlBasedComponent parent, ListFormPresenter<T> presenter,
+                           List<ColumnInfo> columns, List<FieldInfo> fields) {
+    this.parent = parent;
+    this.presenter = presenter;
+    this.fields = fields;
+    this.columns = columns;
+  }
+
+  /**
+   * Initialization of all components on holder
+   */
+  protected void initGUI() {
+    parent.setHeight("100%");
+    parent.setWidth("100%");
+
+    Borderlayout mainLayout = layout = new Borderlayout();
+    mainLayout.setHeight("100%");
+    mainLayout.setWidth("100%");
+    parent.appendChild(mainLayout);
+
+    West listHolder = new West();
+    listHolder.setSize("30%");
+    listHolder.setTitle("Список");
+    listHolder.setCollapsible(true);
+    listHolder.setSplittable(true);
+    mainLayout.appendChild(listHolder);
+    initObjectsListbox();
+    if (facetFilter && pageSize <= 0) {
+      //панель фильтров над основным списком
+      Borderlayout listLayout = new Borderlayout();
+      North facetHolder = new North();
+      facetHolder.setSize("40%");
+      facetHolder.setTitle("Фильтры");
+      facetHolder.setCollapsible(true);
+      facetHolder.setSplittable(true);
+      facetHolder.setAutoscroll(true);
+      facetHolder.appendChild(createFacetPanel());
+      listLayout.appendChild(facetHolder);
+      Center listCenter = new Center();
+      listCenter.appendChild(objectsListbox);
+      listLayout.appendChild(listCenter);
+      listHolder.appendChild(listLayout);
+    } else {
+      listHolder.appendChild(objectsListbox);
+    }
+    if (selectionTimer != null) {
+      parent.appendChild(selectionTimer);
+    }
+    if (autoRefreshInterval > 0) {
+      refreshTimer = new Timer(autoRefreshInterval);
+      refreshTimer.setRepeats(true);
+      listen(refreshTimer, Events.ON_TIMER, event -> pollChanges());
+      parent.appendChild(refreshTimer);
+    }
+    if (columnsPopup != null) {
+      parent.appendChild(columnsPopup);
+    }
+
+    Center center = new Center();
+    mainLayout.appendChild(center);
+    center.appendChild(detailHolder = new Div());
+    initDetailsGUI();
+    initControlPanel();
+  }
+
+  /**
+   * Builds list form. If form is already built, then previous components are disposed first,
+   * so the same builder could be built again without leaks.
+   */
+  public void build() {
+    if (layout != null) {
+      dispose();
+    }
+    if (parent.isVisible()) {
+      checkPresenter(presenter);
+      presenter.setView(this);
+      initComparator();
+      initGUI();
+      ListFormRegistry.getInstance().register(this);
+      refresh();
+    }
+  }
+
+  /**
+   * Restores presenter and metadata after deserialization of the form, if they weren't serialized with it because
+   * they aren't serializable. Should be called before the first event of the form, e.g. from
+   * session activation listener. Components of the form are kept.
+   *
+   * @param presenter presenter of the form
+   * @param columns   metadata for main list. Should be the same as before serialization.
+   * @param fields    metadata for editing properties. Should be the same as before serialization.
+   */
+  public void restore(ListFormPresenter<T> presenter, List<ColumnInfo> columns, List<FieldInfo> fields) {
+    this.presenter = presenter;
+    this.columns = columns;
+    this.fields = fields;
+    relinkReadOnlyLabels();
+    initComparator();
+    if (layout != null) {
+      presenter.setView(this);
+    }
+  }
+
+  /**
+   * Binds labels of read-only fields to restored metadata of fields
+   */
+  private void relinkReadOnlyLabels() {
+    if (restoredLabels != null && fields != null) {
+      for (Map.Entry<Integer, Label> entry : restoredLabels.entrySet()) {
+        readOnlyLabels.put(fields.get(entry.getKey()), entry.getValue());
+      }
+      restoredLabels = null;
+    }
+  }
+
+  /**
+   * @return are presenter and metadata available, i.e. form isn't waiting for {@link #restore}
+   */
+  public boolean isRestored() {
+    return presenter != null && columns != null && fields != null;
+  }
+
+  /**
+   * Binds built form to another presenter (e.g. with another filter) without rebuilding components:
+   * layout, main list, editors and their listeners are kept, only the model of main list is reloaded.
+   * If form isn't built yet, then presenter is just set.
+   *
+   * @param presenter new presenter
+   * @throws IllegalArgumentException if presenter edits objects of other class, so editors don't fit it,
+   *                                  or it doesn't support enabled modes of the form
+   */
+  public void rebind(ListFormPresenter<T> presenter) throws IllegalArgumentException {
+    if (layout == null) {
+      setPresenter(presenter);
+      return;
+    }
+    if (!this.presenter.getObjectClass().equals(presenter.getObjectClass())) {
+      throw new IllegalArgumentException(String.format("Form of %s can't be bound to presenter of %s",
+          this.presenter.getObjectClass().getName(), presenter.getObjectClass().getName()));
+    }
+    checkPresenter(presenter);
+    this.presenter = presenter;
+    rowsGeneration++;
+    pendingRows = null;
+    pendingSelection = null;
+    optimistic = null;
+    restoredState = null;
+    if (renderCache != null) {
+      renderCache.clear();
+    }
+    if (pageSize > 0) {
+      objectsListbox.setActivePage(0);
+    }
+    presenter.setView(this);
+    refresh();
+  }
+
+  /**
+   * Checks that presenter supports enabled modes of the form, so they don't fail later in event handlers.
+   *
+   * @param presenter presenter
+   * @throws IllegalArgumentException if presenter doesn't support some mode
+   */
+  protected void checkPresenter(ListFormPresenter<T> presenter) throws IllegalArgumentException {
+    checkSupport(presenter, pageSize > 0, presenter.supportsPaging(), "paged loading");
+    checkSupport(presenter, columnarStore, presenter.supportsLoadingByKey(), "loading objects by key");
+    checkSupport(presenter, autoRefreshInterval > 0, presenter.supportsChanges(), "change tokens");
+    checkSupport(presenter, importEnabled, presenter.supportsImport(), "import");
+  }
+
+  private static void checkSupport(ListFormPresenter<?> presenter, boolean enabled, boolean supported, String mode) {
+    if (enabled && !supported) {
+      throw new IllegalArgumentException(String.format("%s doesn't support %s", presenter.getClass().getName(), mode));
+    }
+  }
+
+  /**
+   * Releases the form: detaches its components from parent together with their listeners, releases models
+   * of main list and editors, clears caches and unregisters the form from {@link ListFormRegistry}.
+   * Pending background results for disposed form are ignored. Form could be built again by {@link #build()}.
+   */
+  public void dispose() {
+    rowsGeneration++;
+    pendingRows = null;
+    pendingSelection = null;
+    optimistic = null;
+    restoredState = null;
+    selected = null;
+    if (selectionTimer != null) {
+      selectionTimer.stop();
+      selectionTimer.detach();
+      selectionTimer = null;
+    }
+    if (refreshTimer != null) {
+      refreshTimer.stop();
+      refreshTimer.detach();
+      refreshTimer = null;
+    }
+    changePoller.clear();
+    if (columnsPopup != null) {
+      columnsPopup.detach();
+      columnsPopup = null;
+    }
+    if (objectsListbox != null) {
+      objectsListbox.setModel((ListModel) null);
+      objectsListbox.setItemRenderer((ListitemRenderer) null);
+      objectsListbox = null;
+    }
+    objectListRenderer = null;
+    listheaders = null;
+    for (Component editor : propertyEditors.values()) {
+      if (editor instanceof Listbox) {
+        ((Listbox) editor).setModel((ListModel) null);
+      }
+    }
+    propertyEditors.clear();
+    readOnlyLabels.clear();
+    facetCheckboxes.clear();
+    facetIndex = null;
+    memoryMonitor.reset();
+    pushedValues.clear();
+    if (renderCache != null) {
+      renderCache.clear();
+    }
+    if (layout != null) {
+      layout.detach();
+      layout = null;
+    }
+    detailHolder = null;
+    addButton = null;
+    editButton = null;
+    deleteButton = null;
+    importButton = null;
+    ListFormRegistry.getInstance().unregister(this);
+  }
+
+  /**
+   * Returns memory used by the form: numbers of model elements, rendered items and cells, editors,
+   * cached lookup models and rows. Components can't be read outside of desktop, so the last snapshot is returned
+   * and the fresh one is requested, see {@link ListFormMemoryMonitor}. Could be called from any thread.
+   *
+   * @return statistics or {@code null}, if form is not built or statistics are not collected yet
+   */
+  public ListFormMemoryStats getMemoryStats() {
+    Listbox listbox = objectsListbox;
+    return memoryMonitor.getStats(listbox != null ? listbox.getDesktop() : null);
+  }
+
+  /**
+   * @return monitor which collects statistics of main list, editors and cache of the form
+   */
+  private ListFormMemoryMonitor createMemoryMonitor() {
+    return new ListFormMemoryMonitor(() -> ListFormMemoryMonitor.collect(objectsListbox, getName(),
+        pendingRows != null ? pendingRows.size() : 0, propertyEditors.values(),
+        renderCache != null ? renderCache.size() : 0));
+  }
+
+  /**
+   * Initializes comparator if it's not set
+   */
+  private void initComparator() {
+    if (objectComparator == null) {
+      SortDefinition[] sortDefinitions = new SortDefinition[columns.size()];
+      for (int i = 0; i < columns.size(); i++) {
+        sortDefinitions[i] = new MutableSortDefinition(columns.get(i).getPath(), true, true);
+      }
+      objectComparator = new MultiPropertyComparator<>(sortDefinitions);
+    }
+  }
+
+  /**
+   * Initializes control panel with add, remove, edit buttons.
+   */
+  protected void initControlPanel() {
+    Div div = new Div();
+    div.setSclass("buttonGroup");
+    addButton = new Button("Добавить", "/images/add 16.png");
+    listen(addButton, Events.ON_CLICK, event -> saveNew());
+    div.appendChild(addButton);
+
+    editButton = new Button("Изменить", "/images/edit1 16.png");
+    listen(editButton, Events.ON_CLICK, event -> save());
+    div.appendChild(editButton);
+
+    deleteButton = new Button("Удалить", "/images/delete 16.png");
+    listen(deleteButton, Events.ON_CLICK, event -> delete());
+    div.appendChild(deleteButton);
+
+    if (importEnabled) {
+      importButton = new Button("Импорт", "/images/import 16.png");
+      importButton.setUpload("true,maxsize=-1,native");
+      listen(importButton, Events.ON_UPLOAD, event -> importObjects(((UploadEvent) event).getMedia()));
+      div.appendChild(importButton);
+    }
+
+    detailHolder.appendChild(div);
+  }
+
+  /**
+   * Возвращает список метаданных по колонкам, которые будут показываться
+   * в основном списке редактируемых объектов.
+   * Должен быть определён потоками.
+   *
+   * @return не может быть {@code null} или пустым.
+   */
+
+
+  /**
+   * Инициализация списка редактируемых объектов. Здесь происходит только
+   * создание заголовков списка и установка рендерера. Загрузка модели происходит
+   * в методе {@link #refresh() } после того, как все компоненты уже инициализированы.
+   */
+  protected void initObjectsListbox() {
+    objectsListbox = new Listbox();
+    objectsListbox.setVflex(true);
+    objectsListbox.setFixedLayout(true);
+    if (pageSize > 0) {
+      objectsListbox.setMold("paging");
+      objectsListbox.setPageSize(pageSize);
+      objectsListbox.setAttribute("org.zkoss.zul.listbox.rod", true);
+    }
     List<ColumnInfo> columns = getColumns();
+    if (columnChooser) {
+      loadVisibleColumns();
+    }
     Listhead head = new Listhead();
-    for (ColumnInfo column : columns) {
-      head.appendChild(new Listheader(column.getCaption(), null, column.getWidth()));
+    listheaders = new Listheader[columns.size()];
+    for (int i = 0; i < columns.size(); i++) {
+      ColumnInfo column = columns.get(i);
+      listheaders[i] = new Listheader(column.getCaption(), null, column.getWidth());
+      if (isColumnVisible(i)) {
+        head.appendChild(listheaders[i]);
+      }
+    }
+    objectsListbox.appendChild(head);
+    if (columnChooser) {
+      columnsPopup = createColumnsPopup();
+      head.setContext(columnsPopup);
+    }
+    if (typeAhead) {
+      objectsListbox.setWidgetListener("onKeyPress", TYPE_AHEAD_SCRIPT);
+      listen(objectsListbox, ON_TYPE_AHEAD, event -> typeAhead(Objects.toString(event.getData(), "")));
+    }
+
+    if (multipleSelection) {
+      objectsListbox.setMultiple(true);
+      objectsListbox.setCheckmark(true);
+    }
+    objectsListbox.setItemRenderer(objectListRenderer = new ObjectListRenderer());
+    listen(objectsListbox, Events.ON_SELECT, event -> {
+      Set items = ((SelectEvent) event).getSelectedItems();
+      if (items.isEmpty()) {
+        setSelectedObject(null);
+      } else {
+        //выбор в списке уже сделан пользователем, покажем только объект, на котором щёлкнули
+        Component reference = ((SelectEvent) event).getReference();
+        Listitem item = items.contains(reference) ? (Listitem) reference : (Listitem) items.iterator().next();
+        selectElement(elementOf(item));
+      }
+    });
+    listen(objectsListbox, ON_SHOW_SELECTION, event -> {
+      if (event.getData() == pendingSelection) {
+        flushSelection();
+      }
+    });
+    if (selectionDelay > 0) {
+      selectionTimer = new Timer(selectionDelay);
+      selectionTimer.setRepeats(true);
+      selectionTimer.setRunning(false);
+      listen(selectionTimer, Events.ON_TIMER, event -> {
+        if (System.currentTimeMillis() - lastSelectionTime >= selectionDelay) {
+          flushSelection();
+        }
+      });
+    }
+    listen(objectsListbox, ON_APPEND_ROWS, event -> {
+      if (Objects.equals(event.getData(), rowsGeneration)) {
+        appendPendingRows(progressiveChunkSize);
+      }
+    });
+  }
+
+  /**
+   * Shows element selected by user in details section according to selection delay.
+   *
+   * @param element element of main model
+   */
+  protected void selectElement(Object element) {
+    if (selectionDelay < 0) {
+      showSelectedObject(toObject(element));
+      return;
+    }
+    pendingSelection = element;
+    lastSelectionTime = System.currentTimeMillis();
+    if (selectionTimer != null) {
+      selectionTimer.start();
+    } else {
+      Events.echoEvent(ON_SHOW_SELECTION, objectsListbox, element);
+    }
+  }
+
+  /**
+   * Shows pending selection in details section immediately.
+   */
+  protected void flushSelection() {
+    if (selectionTimer != null) {
+      selectionTimer.stop();
+    }
+    if (pendingSelection != null) {
+      Object element = pendingSelection;
+      pendingSelection = null;
+      showSelectedObject(toObject(element));
+    }
+  }
+
+  /**
+   * Adds serializable listener, which restores replicated state of the form before handling of event.
+   *
+   * @param component component
+   * @param eventName name of event
+   * @param listener  listener
+   */
+  protected void listen(Component component, String eventName, SerializableEventListener<Event> listener) {
+    component.addEventListener(eventName, (SerializableEventListener<Event>) event -> {
+      if (!isRestored()) {
+        throw new IllegalStateException(String.format("Form %s isn't restored after deserialization", getName()));
+      }
+      restoreState();
+      listener.onEvent(event);
+    });
+  }
+
+  /**
+   * Returns element of main model rendered by the item. In replication-friendly mode items don't keep elements.
+   *
+   * @param item item of main list
+   * @return element of main model
+   */
+  protected Object elementOf(Listitem item) {
+    return item.getValue() != null ? item.getValue() : objectsListbox.getModel().getElementAt(item.getIndex());
+  }
+
+  /**
+   * Initialization of editors
+   */
+  protected void initDetailsGUI() {
+    Grid grid = new Grid();
+    Rows rows = new Rows();
+    for (FieldInfo field : fields) {
+      rows.appendChild(createPropertyRow(field));
+    }
+    grid.appendChild(rows);
+    detailHolder.appendChild(grid);
+  }
+
+  /**
+   * Creates field based on field metadata
+   *
+   * @param fieldInfo field metadata
+   * @return row component
+   */
+  private Row createPropertyRow(final FieldInfo fieldInfo) {
+    if (fieldInfo.isReadOnly()) {
+      //поле только для просмотра: вместо редактора простая метка
+      Row row = new Row();
+      row.appendChild(new Label(fieldInfo.getCaption()));
+      Label label = new Label();
+      row.appendChild(label);
+      fieldInfo.processEditor(label);
+      readOnlyLabels.put(fieldInfo, label);
+      return row;
+    } else if (fieldInfo.getLookupProvider() != null) {
+      //значения ищутся по мере ввода, полный список в редактор не попадает
+      Row row = new Row();
+      row.appendChild(new Label(fieldInfo.getCaption()));
+      AutocompleteCombo<Object> editor = new AutocompleteCombo<>((LookupProvider<Object>) fieldInfo.getLookupProvider());
+      editor.setWidth("100%");
+      row.appendChild(editor);
+      fieldInfo.processEditor(editor);
+      registerObjectPropertyEditor(fieldInfo.getPath(), editor);
+      return row;
+    } else if (fieldInfo.getValues() == null) {
+      Row row = new Row();
+      row.appendChild(new Label(fieldInfo.getCaption()));
+      Class cl = ClassUtils.getType(presenter.getObjectClass(), fieldInfo.getPath());
+      Component editor = ZkComponents.createInlineEditor(row, cl, null);
+      fieldInfo.processEditor(editor);
+      registerObjectPropertyEditor(fieldInfo.getPath(), editor);
+      return row;
+    } else {
+      //список значений общий для всех редакторов поля, модель хранит только выбор
+      ListModel model = SharedListModel.of(fieldInfo.getValues().keySet());
+      ListitemRenderer renderer = new ListitemRenderer() {
+        @Override
+        public void render(Listitem item, Object data, int index) throws Exception {
+          item.appendChild(new Listcell(fieldInfo.getValues().get(data)));
+          item.setValue(data);
+        }
+      };
+      return createPropertyRow(fieldInfo.getPath(), fieldInfo.getCaption(), model, renderer);
+    }
+  }
+
+  /**
+   * Создаёт редактор-селектор для указанного свойства объекта в строке грида. Регистрирует
+   * свойство и редактор.
+   *
+   * @param path     путь к редактируемому свойству
+   * @param caption  название свойства
+   * @param model    модель списка выбора
+   * @param renderer рендерер для списка выбора. Может быть {@code null}.
+   * @return строку с меткой и редактором.
+   */
+  protected Row createPropertyRow(String path, String caption, ListModel model,
+                                  ListitemRenderer renderer) {
+    Row row = new Row();
+    row.appendChild(new Label(caption));
+    Component editor = ZkComponents.createInlineListbox(row, model, renderer, null);
+    registerObjectPropertyEditor(path, editor);
+    return row;
+  }
+
+  /**
+   * Прокручивает список на выбранный элемент
+   */
+  protected void scrollToSelected() {
+    Listitem item = objectsListbox.getSelectedItem();
+    if (item != null) {
+      Clients.scrollIntoView(item);
+    }
+  }
+
+  /**
+   * Сохраняет выбранный на форме объект как новый.
+   */
+  protected void saveNew() {
+    if (asyncSave) {
+      saveAsync(true);
+      return;
+    }
+    selected = null;
+    presenter.add();
+    Messagebox.show(createSaveNewSuccessMessage(getSelectedObject()), "Операция завершена.", Messagebox.OK, Messagebox.INFORMATION);
+  }
+
+  /**
+   * Сохраняет выбранный на форме объект.
+   */
+  protected void save() {
+    flushSelection();
+    int count = getSelectedCount();
+    if (multipleSelection && count > 1) {
+      presenter.updateAll(this);
+      Messagebox.show(createSaveAllSuccessMessage(count), "Операция завершена.", Messagebox.OK, Messagebox.INFORMATION);
+      return;
+    }
+    if (asyncSave) {
+      saveAsync(false);
+      return;
+    }
+    presenter.edit();
+    Messagebox.show(createSaveSuccessMessage(getSelectedObject()), "Операция завершена.", Messagebox.OK, Messagebox.INFORMATION);
+    scrollToSelected();
+  }
+
+  /**
+   * Сохраняет выбранный на форме объект в фоновом потоке. Изменения сразу применяются к основному списку,
+   * а если презентер завершится с ошибкой, то откатываются. Результат показывается уведомлением.
+   *
+   * @param isNew сохранять ли объект как новый
+   * @throws IllegalStateException если форма не построена
+   */
+  protected void saveAsync(final boolean isNew) throws IllegalStateException {
+    if (objectsListbox == null || objectsListbox.getDesktop() == null) {
+      throw new IllegalStateException("Form isn't built, objects can't be saved asynchronously");
+    }
+    final Desktop desktop = objectsListbox.getDesktop();
+    if (!desktop.isServerPushEnabled()) {
+      desktop.enableServerPush(true);
+    }
+    final T previous = selected;
+    if (isNew) {
+      selected = null;
+    }
+    final T pending = detailsToObject(selected);
+    if (!isPaged()) {
+      ListModelList model = getObjectListModel();
+      int index = isNew ? -1 : indexOf(previous);
+      if (isNew) {
+        model.add(pending);
+      } else if (index >= 0) {
+        model.set(index, pending);
+      }
+      optimistic = pending;
+    }
+    setSaving(true);
+    Runnable task = () -> {
+      Throwable failure = null;
+      asyncSelected.set(pending);
+      try {
+        if (isNew) {
+          presenter.add();
+        } else {
+          presenter.edit();
+        }
+      } catch (Throwable ex) {
+        failure = ex;
+      } finally {
+        asyncSelected.remove();
+      }
+      final Throwable result = failure;
+      runInDesktop(desktop, () -> finishAsyncSave(isNew, previous, pending, result));
+    };
+    try {
+      getExecutor().execute(task);
+    } catch (RejectedExecutionException ex) {
+      //сохранение в потоке событий заблокировало бы рабочий стол, поэтому откатываем его как неудачное
+      finishAsyncSave(isNew, previous, pending, ex);
+    }
+  }
+
+  /**
+   * Завершает асинхронное сохранение: показывает уведомление, а при ошибке откатывает изменения основного списка.
+   *
+   * @param isNew    сохранялся ли объект как новый
+   * @param previous объект до изменения. Может быть {@code null}
+   * @param pending  сохраняемый объект
+   * @param failure  ошибка сохранения или {@code null}
+   */
+  protected void finishAsyncSave(boolean isNew, T previous, T pending, Throwable failure) {
+    boolean rowIsOptimistic = optimistic == pending;
+    optimistic = null;
+    setSaving(false);
+    if (failure == null) {
+      getZkUtils().showNotification(isNew ? createSaveNewSuccessMessage(pending) : createSaveSuccessMessage(pending));
+    } else {
+      log.log(Level.WARNING, "Asynchronous saving of object has failed", failure);
+      if (rowIsOptimistic && !isPaged()) {
+        ListModelList model = getObjectListModel();
+        int index = model.indexOf(pending);
+        if (index >= 0) {
+          if (isNew || previous == null) {
+            model.remove(index);
+          } else {
+            model.set(index, previous);
+          }
+        }
+      }
+      getZkUtils().showNotification(createSaveFailureMessage(pending, failure), ZkUtils.Notification.Type.ERROR);
+    }
+  }
+
+  /**
+   * Блокирует кнопки на время асинхронного сохранения.
+   *
+   * @param saving идёт ли сохранение
+   */
+  protected void setSaving(boolean saving) {
+    addButton.setDisabled(saving);
+    editButton.setDisabled(saving || selected == null);
+    deleteButton.setDisabled(saving || selected == null);
+  }
+
+  /**
+   * Выполняет действие в потоке обработки событий рабочего стола. Если текущий поток не обрабатывает
+   * события этого стола, то действие выполняется через server push.
+   *
+   * @param desktop рабочий стол
+   * @param action  действие
+   */
+  protected void runInDesktop(Desktop desktop, Runnable action) {
+    if (Executions.getCurrent() != null && Executions.getCurrent().getDesktop() == desktop) {
+      action.run();
+    } else {
+      Executions.schedule(desktop, event -> {
+        if (objectsListbox != null) { //форма могла быть освобождена, пока задача ждала своей очереди
+          restoreState();
+          action.run();
+        }
+      }, new Event("onListFormTask"));
+    }
+  }
+
+  /**
+   * Переносит вызов метода представления из фонового потока в поток обработки событий.
+   *
+   * @param action вызов метода
+   * @return {@code true}, если вызов перенесён и текущий поток не должен его выполнять
+   * @throws IllegalStateException если метод вызван из фонового потока, а форма не построена
+   */
+  private boolean deferToDesktop(Runnable action) throws IllegalStateException {
+    if (Executions.getCurrent() != null) {
+      return false;
+    }
+    Listbox listbox = objectsListbox;
+    Desktop desktop = listbox != null ? listbox.getDesktop() : null;
+    if (desktop == null) {
+      //без рабочего стола вызов не в чем выполнить, а в фоновом потоке он упал бы на компонентах
+      throw new IllegalStateException("Form isn't built, view can't be changed from background thread");
+    }
+    runInDesktop(desktop, action);
+    return true;
+  }
+
+  /**
+   * @return количество выбранных в основном списке объектов
+   */
+  protected int getSelectedCount() {
+    ListModel model = objectsListbox.getModel();
+    return model instanceof Selectable ? ((Selectable) model).getSelection().size() : objectsListbox.getSelectedCount();
+  }
+
+  /**
+   * Создаёт импортёр объектов из CSV. Потомки могут настроить разделитель, кодировку и размер пакета.
+   *
+   * @return импортёр
+   */
+  protected CsvImporter<T> createImporter() {
+    return new CsvImporter<T>(presenter.getObjectClass(), fields);
+  }
+
+  /**
+   * Импортирует объекты из загруженного CSV файла в фоновом потоке. Файл читается построчно, объекты
+   * передаются презентеру пакетами, прогресс показывается сообщением загрузки. После импорта список обновляется.
+   *
+   * @param media загруженный файл
+   */
+  protected void importObjects(final Media media) {
+    if (media == null) {
+      return;
+    }
+    final Desktop desktop = objectsListbox.getDesktop();
+    if (!desktop.isServerPushEnabled()) {
+      desktop.enableServerPush(true);
+    }
+    final CsvImporter<T> importer = createImporter();
+    final ZkUtils utils = getZkUtils();
+    importButton.setDisabled(true);
+    try {
+      getImportExecutor().execute(() -> {
+        String message;
+        ZkUtils.Notification.Type type;
+        long[] committed = new long[2]; //сохранённые пакеты и объекты в них
+        try (Reader reader = importer.openReader(media)) {
+          long count = importer.importObjects(reader, batch -> {
+            presenter.importObjects(batch);
+            committed[0]++;
+            committed[1] += batch.size();
+          }, rows -> utils.threadShowBusy(desktop, createImportProgressMessage(rows)));
+          message = createImportSuccessMessage(count);
+          type = ZkUtils.Notification.Type.INFO;
+        } catch (Exception ex) {
+          log.log(Level.WARNING, String.format("Import of objects has failed after %d saved batches", committed[0]), ex);
+          message = createImportFailureMessage(ex, committed[0], committed[1]);
+          type = ZkUtils.Notification.Type.ERROR;
+        }
+        final String result = message;
+        final ZkUtils.Notification.Type resultType = type;
+        utils.threadDoInActivatedDesktop(desktop, () -> {
+          Clients.clearBusy();
+          if (importButton != null) {
+            importButton.setDisabled(false);
+            refresh();
+          }
+          utils.showNotification(result, resultType);
+        });
+      });
+    } catch (RejectedExecutionException ex) {
+      importButton.setDisabled(false);
+      utils.showNotification("Сервер занят, повторите импорт позже", ZkUtils.Notification.Type.WARNING);
+    }
+  }
+
+  /**
+   * Удаляет выбранный на форме объект.
+   */
+  protected void delete() {
+    flushSelection();
+    int count = getSelectedCount();
+    if (multipleSelection && count > 1) {
+      if (Messagebox.show(createDeleteAllMessage(count), "Подтверждение удаления", Messagebox.YES + Messagebox.NO, Messagebox.QUESTION) == Messagebox.YES) {
+        presenter.deleteAll(this);
+      }
+      return;
+    }
+    if (Messagebox.show(createDeleteMessage(getSelectedObject()), "Подтверждение удаления", Messagebox.YES + Messagebox.NO, Messagebox.QUESTION) == Messagebox.YES) {
+      presenter.delete();
+    }
+  }
+
+  @Override
+  public int setSelectedObject(T selected) {
+    if (deferToDesktop(() -> setSelectedObject(selected))) {
+      return -1;
+    }
+    pendingSelection = null;
+    int index = selected != null ? indexOf(selected) : -1;
+    objectsListbox.setSelectedIndex(index);
+    showSelectedObject(selected);
+    return index;
+  }
+
+  /**
+   * Показывает объект в секции детализации, не меняя выбора в основном списке.
+   *
+   * @param selected объект. Может быть {@code null}
+   */
+  protected void showSelectedObject(T selected) {
+    this.selected = selected;
+    editButton.setDisabled(selected == null);
+    deleteButton.setDisabled(selected == null);
+    objectToDetails(selected);
+  }
+
+  /**
+   * Обновляет GUI часть секции детализации на основе указанного объекта.
+   *
+   * @param source может быть {@code null}
+   */
+  protected void objectToDetails(T source) {
+    for (Map.Entry<String, Component> entry : propertyEditors.entrySet()) {
+      String path = entry.getKey();
+      Component editor = entry.getValue();
+      Object value = source != null ? ClassUtils.getValue(source, path) : null;
+      //не трогаем редактор, если значение не изменилось и пользователь его не редактировал,
+      //чтобы не отправлять клиенту лишних обновлений
+      PushedValue pushed = pushedValues.get(path);
+      if (pushed != null && Objects.equals(pushed.value, value)
+          && Objects.equals(pushed.editorValue, ZkComponents.getValueFromEditor(editor))) {
+        continue;
+      }
+      setEditorValue(editor, value);
+      pushedValues.put(path, new PushedValue(value, ZkComponents.getValueFromEditor(editor)));
     }
-    objectsListbox.appendChild(head);
+    for (Map.Entry<FieldInfo, Label> entry : readOnlyLabels.entrySet()) {
+      Object value = source != null ? ClassUtils.getValue(source, entry.getKey().getPath()) : null;
+      //setValue не отправляет клиенту обновление, если текст не изменился
+      entry.getValue().setValue(formatReadOnlyValue(entry.getKey(), value));
+    }
+  }
 
-    objectsListbox.setItemRenderer(new ObjectListRenderer(columns));
-    objectsListbox.addEventListener(Events.ON_SELECT, event -> {
-      Set items = ((SelectEvent) event).getSelectedItems();
-      if (items.isEmpty()) {
-        setSelectedObject(null);
-      } else {
-        Listitem item = (Listitem) new ArrayList(items).get(0);
-        setSelectedObject((T) item.getValue());
+  /**
+   * Форматирует значение поля только для просмотра. Для полей со списком значений или источником значений выводится название значения.
+   *
+   * @param field метаданные поля
+   * @param value значение. Может быть {@code null}
+   * @return текст метки
+   */
+  protected String formatReadOnlyValue(FieldInfo field, Object value) {
+    if (value == null) {
+      return "";
+    } else if (field.getLookupProvider() != null) {
+      return ((LookupProvider<Object>) field.getLookupProvider()).getCaption(value);
+    } else if (field.getValues() != null) {
+      String caption = field.getValues().get(value);
+      return caption != null ? caption : value.toString();
+    }
+    return value.toString();
+  }
+
+  /**
+   * Показывает значение в редакторе свойства.
+   *
+   * @param editor редактор
+   * @param value  значение. Может быть {@code null}
+   */
+  private void setEditorValue(Component editor, Object value) {
+    if (editor instanceof Listbox) {
+      ZkComponents.setValueToListbox((Listbox) editor, value, null);
+    } else {
+      ZkComponents.setValueToEditor(editor, value);
+    }
+  }
+
+  /**
+   * Переносит значения выбранные в секции редактирования в сам объект (
+   * либо его клон). Если переданный объект {@code null}, то будет возвращён
+   * новый объект.
+   *
+   * @param object шаблон объекта.
+   * @return заполненный объект. Не {@code null}.
+   */
+  protected T detailsToObject(T object) {
+    T result = selected != null ? ClassUtils.clone(object) : ClassUtils.newInstance(presenter.getObjectClass());
+
+    //Пройдёмся по всем свойствам и проставим значения.
+    for (Map.Entry<String, Component> entry : propertyEditors.entrySet()) {
+      String path = entry.getKey();
+      Object value = ZkComponents.getValueFromEditor(entry.getValue());
+      ClassUtils.setValue(result, path, value);
+    }
+    return result;
+  }
+
+  @Override
+  public void refresh() {
+    if (deferToDesktop(this::refresh)) {
+      return;
+    }
+    if (autoRefreshInterval > 0) {
+      changePoller.reset(presenter);
+    }
+    if (pageSize > 0) {
+      loadPages();
+    } else {
+      presenter.loadObjects();
+    }
+  }
+
+  /**
+   * Loads main list in paged mode. Active page is kept.
+   */
+  protected void loadPages() {
+    PagedListModel<T> model = reloadPages();
+    int first = objectsListbox.getActivePage() * pageSize;
+    setSelectedObject(model.getSize() > 0 ? model.getElementAt(first) : null);
+  }
+
+  /**
+   * Replaces model of main list in paged mode, doesn't change selected object. Active page is kept.
+   *
+   * @return new model
+   */
+  private PagedListModel<T> reloadPages() {
+    int activePage = objectsListbox.getActivePage();
+    PagedListModel<T> model = new PagedListModel<T>(presenter.countObjects(), pageSize,
+        PagedListModel.DEFAULT_CACHED_PAGES, presenter::loadObjects, getExecutor());
+    objectsListbox.setModel(prepareModel(model));
+    int first = activePage * pageSize < model.getSize() ? activePage * pageSize : 0;
+    if (first > 0) {
+      objectsListbox.setActivePage(activePage);
+    }
+    return model;
+  }
+
+  /**
+   * Applies polled changes to main list in paged mode, see {@link PagedListUpdater#apply}. Selected row is found
+   * again by key among loaded pages. Details section is refreshed only if selected object has changed and user
+   * isn't editing it.
+   *
+   * @param changes polled changes
+   */
+  private void applyPagedChanges(ListFormChanges<T> changes) {
+    boolean editing = selected != null && !getDetailsChanges().isEmpty();
+    Object selectedKey = selected != null ? presenter.getKey(selected) : null;
+    PagedListModel<T> model = getPagedModel();
+    PagedListUpdater<T> updater = createPagedUpdater();
+    updater.apply(changes, presenter::countObjects);
+    if (selectedKey == null) {
+      return;
+    }
+    int first = Math.max(0, Math.min(objectsListbox.getActivePage() * pageSize, model.getSize() - 1));
+    if (!editing && changes.getRemovedKeys().contains(selectedKey)) {
+      setSelectedObject(model.getSize() > 0 ? model.getElementAt(first) : null);
+      return;
+    }
+    if (model.getSize() > 0) {
+      model.getElementAt(first); //загрузим активную страницу, чтобы найти на ней выбранный объект
+    }
+    int index = updater.indexOf(selectedKey);
+    objectsListbox.setSelectedIndex(index);
+    if (editing || index < 0) {
+      return;
+    }
+    for (T object : changes.getChangedObjects()) {
+      if (Objects.equals(presenter.getKey(object), selectedKey)) {
+        showSelectedObject(model.getElementAt(index));
+        break;
       }
-    });
+    }
   }
 
   /**
-   * Initialization of editors
+   * Applies settings of the form to new model of main list.
+   *
+   * @param model new model
+   * @return the same model
    */
-  protected void initDetailsGUI() {
-    Grid grid = new Grid();
-    Rows rows = new Rows();
-    for (FieldInfo field : fields) {
-      rows.appendChild(createPropertyRow(field));
+  protected ListModel prepareModel(ListModel model) {
+    if (multipleSelection && model instanceof Selectable) {
+      ((Selectable) model).setMultiple(true);
     }
-    grid.appendChild(rows);
-    detailHolder.appendChild(grid);
+    typeAheadIndex = null;
+    if (typeAhead) {
+      model.addListDataListener(this::updateTypeAheadIndex);
+    }
+    return model;
   }
 
   /**
-   * Creates field based on field metadata
+   * @return model of main list in paged mode
+   */
+  protected PagedListModel<T> getPagedModel() {
+    return (PagedListModel<T>) objectsListbox.getModel();
+  }
+
+  /**
+   * @return updater of main list in paged mode
+   */
+  private PagedListUpdater<T> createPagedUpdater() {
+    return new PagedListUpdater<T>(getPagedModel(), presenter::getKey);
+  }
+
+  /**
+   * Removes objects from main list in paged mode, see {@link PagedListUpdater#remove}. The row before the first
+   * removed one is selected.
    *
-   * @param fieldInfo field metadata
-   * @return row component
+   * @param keys keys of removed objects
    */
-  private Row createPropertyRow(final FieldInfo fieldInfo) {
-    if (fieldInfo.getValues() == null) {
-      Row row = new Row();
-      row.appendChild(new Label(fieldInfo.getCaption()));
-      Class cl = ClassUtils.getType(presenter.getObjectClass(), fieldInfo.getPath());
-      Component editor = ZkComponents.createInlineEditor(row, cl, null);
-      fieldInfo.processEditor(editor);
-      registerObjectPropertyEditor(fieldInfo.getPath(), editor);
-      return row;
+  private void removePagedObjects(Collection<Object> keys) {
+    PagedListModel<T> model = getPagedModel();
+    PagedListUpdater<T> updater = createPagedUpdater();
+    int first = updater.remove(keys);
+    if (model.getSize() == 0) {
+      setSelectedObject(null);
+    } else if (first >= 0) {
+      setSelectedObject(model.getElementAt(Math.min(Math.max(first - 1, 0), model.getSize() - 1)));
+    } else if (selected != null) {
+      model.getElementAt(Math.min(objectsListbox.getActivePage() * pageSize, model.getSize() - 1));
+      objectsListbox.setSelectedIndex(updater.indexOf(presenter.getKey(selected)));
+    }
+  }
+
+  /**
+   * @return is main list in paged mode
+   */
+  protected boolean isPaged() {
+    return objectsListbox.getModel() instanceof PagedListModel;
+  }
+
+  /**
+   * @return модель основного списка объектов
+   */
+  protected ListModelList getObjectListModel() {
+    return (ListModelList) objectsListbox.getModel();
+  }
+
+  /**
+   * Находит индект указанного элемента в основной модели.
+   *
+   * @param object искомый элемент
+   * @return индекс найденного элемента или -1, если ничего не найдено.
+   */
+  protected int indexOf(T object) {
+    if (isPaged()) {
+      return ((PagedListModel) objectsListbox.getModel()).indexOfLoaded(object, getObjectComparator());
+    }
+    ListModelList model = getObjectListModel();
+    Comparator comparator = getObjectComparator();
+    if (model instanceof ColumnarListModel) {
+      return ((ColumnarListModel) model).indexOfKey(presenter.getKey(object));
+    } else if (comparator == null) {
+      return model.indexOf(object);
     } else {
-      ListModelList model = new ListModelList();
-      model.addAll(fieldInfo.getValues().keySet());
-      ListitemRenderer renderer = new ListitemRenderer() {
-        @Override
-        public void render(Listitem item, Object data, int index) throws Exception {
-          item.appendChild(new Listcell(fieldInfo.getValues().get(data)));
-          item.setValue(data);
+      int i = 0;
+      for (Object el : model) {
+        if (comparator.compare(el, object) == 0) {
+          return i;
         }
-      };
-      return createPropertyRow(fieldInfo.getPath(), fieldInfo.getCaption(), model, renderer);
+        i++;
+      }
+      return -1;
     }
   }
 
   /**
-   * Создаёт редактор-селектор для указанного свойства объекта в строке грида. Регистрирует
-   * свойство и редактор.
+   * Finds index of object with specified key in main model.
    *
-   * @param path     путь к редактируемому свойству
-   * @param caption  название свойства
-   * @param model    модель списка выбора
-   * @param renderer рендерер для списка выбора. Может быть {@code null}.
-   * @return строку с меткой и редактором.
+   * @param key key of object
+   * @return index of found object or -1, if nothing is found.
    */
-  protected Row createPropertyRow(String path, String caption, ListModel model,
-                                  ListitemRenderer renderer) {
-    Row row = new Row();
-    row.appendChild(new Label(caption));
-    Component editor = ZkComponents.createInlineListbox(row, model, renderer, null);
-    registerObjectPropertyEditor(path, editor);
-    return row;
+  protected int indexOfKey(Object key) {
+    ListModelList model = getObjectListModel();
+    if (model instanceof ColumnarListModel) {
+      return ((ColumnarListModel) model).indexOfKey(key);
+    }
+    for (int i = 0; i < model.size(); i++) {
+      if (Objects.equals(presenter.getKey((T) model.get(i)), key)) {
+        return i;
+      }
+    }
+    return -1;
   }
 
   /**
-   * Прокручивает список на выбранный элемент
+   * Reloads objects with specified keys through {@link ListFormPresenter#reloadObjects(Collection)} and
+   * patches only their rows: found rows are replaced, new objects are added, rows of objects which are not
+   * returned are removed. If presenter says that list is invalid, then list is fully refreshed.
+   *
+   * @param keys keys of objects
    */
-  protected void scrollToSelected() {
-    Listitem item = objectsListbox.getSelectedItem();
-    if (item != null) {
-      Clients.scrollIntoView(item);
+  protected void patchObjects(Collection<?> keys) {
+    flushPendingRows();
+    Collection<T> reloaded = presenter.reloadObjects(keys);
+    if (reloaded == null) {
+      refresh();
+      return;
     }
+    List<T> processed = processObjects(reloaded);
+    Set<Object> removedKeys = new HashSet<Object>(keys);
+    for (T object : processed) {
+      removedKeys.remove(presenter.getKey(object));
+    }
+    applyProcessedChanges(processed, removedKeys);
   }
 
   /**
-   * Сохраняет выбранный на форме объект как новый.
+   * Applies changes to main list: found rows are replaced, new objects are added, rows with removed keys
+   * are removed. If selected object is removed, then the previous row is selected.
+   *
+   * @param changed     added and changed objects
+   * @param removedKeys keys of removed objects
    */
-  protected void saveNew() {
-    selected = null;
-    presenter.add();
-    Messagebox.show(createSaveNewSuccessMessage(getSelectedObject()), "Операция завершена.", Messagebox.OK, Messagebox.INFORMATION);
+  protected void applyChanges(Collection<T> changed, Collection<?> removedKeys) {
+    applyProcessedChanges(processObjects(changed), removedKeys);
   }
 
   /**
-   * Сохраняет выбранный на форме объект.
+   * Applies changes like {@link #applyChanges(Collection, Collection)} does, but objects are already processed
+   * by {@link #processObject(Object)}.
+   *
+   * @param processed   added and changed processed objects
+   * @param removedKeys keys of removed objects
    */
-  protected void save() {
-    presenter.edit();
-    Messagebox.show(createSaveSuccessMessage(getSelectedObject()), "Операция завершена.", Messagebox.OK, Messagebox.INFORMATION);
-    scrollToSelected();
+  protected void applyProcessedChanges(List<T> processed, Collection<?> removedKeys) {
+    ListModelList model = getObjectListModel();
+    updateFacets(processed, removedKeys);
+    for (T object : processed) {
+      invalidateRenderCache(object);
+      int index = indexOf(object);
+      if (index >= 0) {
+        model.set(index, object);
+      } else {
+        model.add(object);
+      }
+    }
+    Object selectedKey = selected != null ? presenter.getKey(selected) : null;
+    for (Object key : removedKeys) {
+      if (renderCache != null) {
+        renderCache.invalidate(key);
+      }
+      int index = indexOfKey(key);
+      if (index >= 0) {
+        model.remove(index);
+        if (Objects.equals(key, selectedKey)) {
+          index -= index > 0 ? 1 : 0;
+          setSelectedObject(model.isEmpty() ? null : toObject(model.get(index)));
+        }
+      }
+    }
+    //удалённые строки не перерисовываются, поэтому снимок не дождался бы рендеринга
+    memoryMonitor.updateIfRequested();
+  }
+
+  /**
+   * Removes object from the cache of formatted cells.
+   *
+   * @param object object
+   */
+  protected void invalidateRenderCache(T object) {
+    if (renderCache != null) {
+      renderCache.invalidate(presenter.getKey(object));
+    }
+  }
+
+  /**
+   * Converts element of main model to object. Rows of {@link ColumnarListModel} are materialized.
+   *
+   * @param element element of main model. Can be {@code null}
+   * @return object
+   */
+  protected T toObject(Object element) {
+    if (element instanceof ColumnarListModel.Row) {
+      return ((ColumnarListModel<T>) getObjectListModel()).materialize((ColumnarListModel.Row) element);
+    } else {
+      return (T) element;
+    }
+  }
+
+  /**
+   * Returns key of element of main model.
+   *
+   * @param element element of main model
+   * @return key of object
+   */
+  protected Object keyOf(Object element) {
+    return element instanceof ColumnarListModel.Row
+        ? ((ColumnarListModel.Row) element).getKey()
+        : presenter.getKey((T) element);
+  }
+
+  /**
+   * Captures compact state of the form for replication.
+   *
+   * @return state
+   */
+  protected ListFormState captureState() {
+    ListModel model = objectsListbox != null ? objectsListbox.getModel() : null;
+    List<Object> keys = null;
+    Set<Object> selectedKeys = new HashSet<Object>();
+    if (model != null && !(model instanceof PagedListModel)) {
+      List<T> pending = pendingRows;
+      keys = new ArrayList<Object>(model.getSize() + (pending != null ? pending.size() : 0));
+      for (int i = 0; i < model.getSize(); i++) {
+        keys.add(keyOf(model.getElementAt(i)));
+      }
+      if (pending != null) {
+        for (T object : pending) {
+          keys.add(presenter.getKey(object));
+        }
+      }
+    }
+    if (model instanceof Selectable) {
+      for (Object element : ((Selectable<?>) model).getSelection()) {
+        selectedKeys.add(keyOf(element));
+      }
+    }
+    Map<String, Object> changes = new HashMap<String, Object>();
+    if (objectsListbox != null) {
+      for (Map.Entry<String, Object> change : getDetailsChanges().entrySet()) {
+        if (change.getValue() == null || change.getValue() instanceof Serializable) {
+          changes.put(change.getKey(), change.getValue());
+        }
+      }
+    }
+    return new ListFormState(keys, selectedKeys, selected != null ? presenter.getKey(selected) : null,
+        pageSize > 0 && objectsListbox != null ? objectsListbox.getActivePage() : 0, changes);
+  }
+
+  /**
+   * Restores main list and details section from replicated state. Is called on first event after failover,
+   * does nothing if form is up to date.
+   */
+  protected void restoreState() {
+    ListFormState state = restoredState;
+    if (state == null) {
+      return;
+    }
+    restoredState = null;
+    if (pageSize > 0) {
+      loadPages(); //активная страница восстановлена самим списком
+    } else {
+      //при фильтре по фасетам в состоянии только отобранные объекты, а индексу нужны все
+      Collection<T> reloaded = state.getKeys() != null && facetCheckboxes.isEmpty()
+          ? presenter.reloadObjects(state.getKeys()) : null;
+      if (reloaded != null) {
+        setObjects(reloaded);
+      } else {
+        presenter.loadObjects();
+      }
+    }
+    ListModel model = objectsListbox.getModel();
+    Set<Object> selectedKeys = state.getSelectedKeys();
+    if (model != null && (state.getSelectedKey() != null || !selectedKeys.isEmpty())) {
+      int from = pageSize > 0 ? state.getActivePage() * pageSize : 0;
+      int to = pageSize > 0 ? Math.min(from + pageSize, model.getSize()) : model.getSize();
+      Object shown = null;
+      for (int i = from; i < to; i++) {
+        Object element = model.getElementAt(i);
+        Object key = keyOf(element);
+        if (selectedKeys.contains(key) && model instanceof Selectable) {
+          ((Selectable<Object>) model).addToSelection(element);
+        }
+        if (Objects.equals(key, state.getSelectedKey())) {
+          shown = element;
+        }
+      }
+      if (shown != null) {
+        showSelectedObject(toObject(shown));
+      }
+    }
+    for (Map.Entry<String, Object> change : state.getChanges().entrySet()) {
+      Component editor = propertyEditors.get(change.getKey());
+      if (editor != null) {
+        setEditorValue(editor, change.getValue());
+      }
+    }
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    out.writeObject(objectComparator instanceof Serializable ? objectComparator : null);
+    //несериализуемые презентер и метаданные передаются заново через restore
+    out.writeObject(serializableOrNull(presenter));
+    out.writeObject(serializableOrNull(columns));
+    out.writeObject(serializableOrNull(fields));
+    Map<Integer, Label> labels = new HashMap<Integer, Label>();
+    if (restoredLabels != null) {
+      labels.putAll(restoredLabels);
+    } else if (fields != null) {
+      for (int i = 0; i < fields.size(); i++) {
+        Label label = readOnlyLabels.get(fields.get(i));
+        if (label != null) {
+          labels.put(i, label);
+        }
+      }
+    }
+    out.writeObject(labels);
+    //постраничная и колоночная модели не сериализуются, поэтому для них список всегда восстанавливается по состоянию
+    boolean compact = replicable || restoredState != null || isTransientModel();
+    out.writeBoolean(compact);
+    if (compact) {
+      out.writeObject(restoredState != null ? restoredState : captureState());
+    } else {
+      out.writeObject(selected);
+    }
+  }
+
+  /**
+   * @return the value, if it and its elements can be serialized, otherwise {@code null}
+   */
+  private static <V> V serializableOrNull(V value) {
+    if (!(value instanceof Serializable)) {
+      return null;
+    }
+    if (value instanceof Collection) {
+      for (Object element : (Collection<?>) value) {
+        if (element != null && !(element instanceof Serializable)) {
+          return null;
+        }
+      }
+    }
+    return value;
   }
 
   /**
-   * Удаляет выбранный на форме объект.
+   * @return is model of main list written as empty model, see {@link PagedListModel} and {@link ColumnarListModel}
    */
-  protected void delete() {
-    if (Messagebox.show(createDeleteMessage(getSelectedObject()), "Подтверждение удаления", Messagebox.YES + Messagebox.NO, Messagebox.QUESTION) == Messagebox.YES) {
-      presenter.delete();
-    }
+  private boolean isTransientModel() {
+    ListModel model = objectsListbox != null ? objectsListbox.getModel() : null;
+    return model instanceof PagedListModel || model instanceof ColumnarListModel;
   }
 
-  @Override
-  public int setSelectedObject(T selected) {
-    this.selected = selected;
-    int index = selected != null ? indexOf(selected) : -1;
-    objectsListbox.setSelectedIndex(index);
-    editButton.setDisabled(selected == null);
-    deleteButton.setDisabled(selected == null);
-    objectToDetails(this.selected);
-    return index;
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    log = Logger.getLogger(getClass().getName());
+    asyncSelected = new ThreadLocal<T>();
+    pushedValues = new HashMap<String, PushedValue>();
+    renderCache = renderCacheSize > 0 ? new RowRenderCache(renderCacheSize) : null;
+    memoryMonitor = createMemoryMonitor();
+    changePoller = new ListChangePoller<T>();
+    objectComparator = (Comparator<T>) in.readObject();
+    presenter = (ListFormPresenter<T>) in.readObject();
+    columns = (List<ColumnInfo>) in.readObject();
+    fields = (List<FieldInfo>) in.readObject();
+    if (columns != null) {
+      initComparator();
+    }
+    readOnlyLabels = new IdentityHashMap<FieldInfo, Label>();
+    restoredLabels = (Map<Integer, Label>) in.readObject();
+    relinkReadOnlyLabels();
+    if (in.readBoolean()) {
+      restoredState = (ListFormState) in.readObject();
+    } else {
+      selected = (T) in.readObject();
+    }
   }
 
   /**
-   * Обновляет GUI часть секции детализации на основе указанного объекта.
+   * Made some actions with object, defined in descendants.
    *
-   * @param source может быть {@code null}
+   * @param object source object
+   * @return processed object
    */
-  protected void objectToDetails(T source) {
-    for (Map.Entry<String, Component> entry : propertyEditors.entrySet()) {
-      Component editor = entry.getValue();
-      Object value = source != null ? ClassUtils.getValue(source, entry.getKey()) : null;
-      if (editor instanceof Listbox) {
-        ZkComponents.setValueToListbox((Listbox) editor, value, null);
-      } else {
-        ZkComponents.setValueToEditor(editor, value);
-      }
-    }
+  protected T processObject(T object) {
+    return object;
   }
 
   /**
-   * Переносит значения выбранные в секции редактирования в сам объект (
-   * либо его клон). Если переданный объект {@code null}, то будет возвращён
-   * новый объект.
+   * Processes every object once by {@link #processObject(Object)}.
    *
-   * @param object шаблон объекта.
-   * @return заполненный объект. Не {@code null}.
+   * @param objects source objects
+   * @return processed objects in the same order
    */
-  protected T detailsToObject(T object) {
-    T result = selected != null ? ClassUtils.clone(object) : ClassUtils.newInstance(presenter.getObjectClass());
-
-    //Пройдёмся по всем свойствам и проставим значения.
-    for (Map.Entry<String, Component> entry : propertyEditors.entrySet()) {
-      String path = entry.getKey();
-      Object value = ZkComponents.getValueFromEditor(entry.getValue());
-      ClassUtils.setValue(result, path, value);
+  protected List<T> processObjects(Collection<T> objects) {
+    List<T> processed = new ArrayList<T>(objects.size());
+    for (T object : objects) {
+      processed.add(processObject(object));
     }
-    return result;
+    return processed;
   }
 
   @Override
-  public void refresh() {
-    presenter.loadObjects();
+  public void setObjects(Collection<T> objects) {
+    if (deferToDesktop(() -> setObjects(objects))) {
+      return;
+    }
+    List<T> processedObjects = processObjects(objects);
+    if (!facetCheckboxes.isEmpty()) {
+      //индекс строится по всем объектам, а в списке показываются только отобранные фильтром
+      facetIndex = FacetIndex.build(getFacetPaths(), presenter::getKey, processedObjects);
+      updateFacetCounts();
+      processedObjects = facetIndex.filter(facetSelection);
+    }
+    showObjects(processedObjects);
   }
 
   /**
-   * @return модель основного списка объектов
+   * Shows processed objects in main list.
+   *
+   * @param processedObjects objects
    */
-  protected ListModelList getObjectListModel() {
-    return (ListModelList) objectsListbox.getModel();
+  protected void showObjects(List<T> processedObjects) {
+    Collections.sort(processedObjects, objectComparator);
+    if (renderCache != null) {
+      renderCache.clear();
+    }
+    rowsGeneration++;
+    pendingRows = null;
+    if (progressiveChunkSize > 0 && processedObjects.size() > progressiveChunkSize) {
+      //остальные строки будут добавлены в следующих echo событиях
+      pendingRows = processedObjects.subList(progressiveChunkSize, processedObjects.size());
+      processedObjects = new ArrayList<T>(processedObjects.subList(0, progressiveChunkSize));
+      Events.echoEvent(ON_APPEND_ROWS, objectsListbox, rowsGeneration);
+    }
+    if (columnarStore) {
+      objectsListbox.setModel(prepareModel(new ColumnarListModel<T>(presenter.getObjectClass(), columns,
+          presenter::getKey, presenter::loadObject, processedObjects)));
+    } else if (replicable) {
+      objectsListbox.setModel(prepareModel(new UnreplicatedListModel(processedObjects)));
+    } else {
+      objectsListbox.setModel(prepareModel(new ListModelList(processedObjects)));
+    }
+    setSelectedObject(processedObjects.size() > 0 ? toObject(getObjectListModel().get(0)) : null);
   }
 
   /**
-   * Находит индект указанного элемента в основной модели.
+   * Appends next chunk of rows in progressive mode. If rows still remain, then next echo event is posted.
    *
-   * @param object искомый элемент
-   * @return индекс найденного элемента или -1, если ничего не найдено.
+   * @param count number of rows to append
    */
-  protected int indexOf(T object) {
-    ListModelList model = getObjectListModel();
-    Comparator comparator = getObjectComparator();
-    if (comparator == null) {
-      return model.indexOf(object);
+  protected void appendPendingRows(int count) {
+    if (pendingRows == null) {
+      return;
+    }
+    List<T> chunk = pendingRows.subList(0, Math.min(count, pendingRows.size()));
+    getObjectListModel().addAll(chunk);
+    chunk.clear();
+    if (pendingRows.isEmpty()) {
+      pendingRows = null;
     } else {
-      int i = 0;
-      for (Object el : model) {
-        if (comparator.compare(el, object) == 0) {
-          return i;
-        }
-        i++;
-      }
-      return -1;
+      Events.echoEvent(ON_APPEND_ROWS, objectsListbox, rowsGeneration);
     }
   }
 
   /**
-   * Made some actions with object, defined in descendants.
-   *
-   * @param object source object
-   * @return processed object
+   * Appends all remaining rows of progressive mode. Is called before any change of main list.
    */
-  protected T processObject(T object) {
-    return object;
-  }
-
-  @Override
-  public void setObjects(Collection<T> objects) {
-    List<T> processedObjects = new LinkedList<T>();
-    for (T object : objects) {
-      processedObjects.add(processObject(object));
+  protected void flushPendingRows() {
+    if (pendingRows != null) {
+      appendPendingRows(pendingRows.size());
     }
-    Collections.sort(processedObjects, objectComparator);
-    objectsListbox.setModel(new ListModelList(processedObjects));
-    setSelectedObject((T) (processedObjects.size() > 0 ? getObjectListModel().get(0) : null));
   }
 
   @Override
   public void addObject(T object) {
+    final T source = object;
+    if (deferToDesktop(() -> addObject(source))) {
+      return;
+    }
+    flushPendingRows();
     object = processObject(object);
+    updateFacets(Collections.singleton(object), Collections.emptySet());
+    if (isPaged()) {
+      getPagedModel().add(object);
+      setSelectedObject(object);
+      return;
+    }
     ListModelList model = getObjectListModel();
-    model.add(object);
+    int index = optimistic != null ? model.indexOf(optimistic) : -1;
+    optimistic = null;
+    if (index >= 0) { //заменим строку, добавленную до подтверждения сохранения
+      model.set(index, object);
+    } else {
+      model.add(object);
+    }
     setSelectedObject(object);
   }
 
   @Override
   public void refreshObject(T object) {
+    final T source = object;
+    if (deferToDesktop(() -> refreshObject(source))) {
+      return;
+    }
+    flushPendingRows();
+    optimistic = null;
     object = processObject(object);
+    updateFacets(Collections.singleton(object), Collections.emptySet());
+    invalidateRenderCache(object);
+    if (isPaged()) {
+      createPagedUpdater().refresh(Collections.singleton(object));
+      setSelectedObject(object);
+      return;
+    }
     ListModelList model = getObjectListModel();
     int index = indexOf(object);
     if (index >= 0) { //if element is found then
       model.set(index, object);
       setSelectedObject(object);
-    } else {//иначе список устарел и надо его обновить полностью.
-      refresh();
+    } else {//иначе список устарел, перезагрузим только этот объект.
+      patchObjects(Collections.singleton(presenter.getKey(object)));
+      index = indexOf(object);
+      if (index >= 0) {
+        setSelectedObject(toObject(getObjectListModel().get(index)));
+      }
     }
   }
 
   @Override
   public void removeObject(T object) {
+    final T source = object;
+    if (deferToDesktop(() -> removeObject(source))) {
+      return;
+    }
+    flushPendingRows();
     object = processObject(object);
+    updateFacets(Collections.<T>emptySet(), Collections.singleton(presenter.getKey(object)));
+    invalidateRenderCache(object);
+    if (isPaged()) {
+      removePagedObjects(Collections.singleton(presenter.getKey(object)));
+      return;
+    }
     ListModelList model = getObjectListModel();
     int index = indexOf(object);
     if (index >= 0) { //Если нашли объект, который надо удалить, то удалим его.
@@ -530,16 +2666,172 @@ public class ZkListFormBuilder<T> implements ListFormView<T> {
         setSelectedObject(null);
       } else {
         index -= index > 0 ? 1 : 0;
-        setSelectedObject((T) model.get(index));
+        setSelectedObject(toObject(model.get(index)));
       }
-    } else {//иначе список устарел и надо его обновить полностью.
-      refresh();
+    } else {//иначе список устарел, перезагрузим только этот объект.
+      patchObjects(Collections.singleton(presenter.getKey(object)));
+    }
+  }
+
+  @Override
+  public void refreshObjects(Collection<T> objects) {
+    if (deferToDesktop(() -> refreshObjects(objects))) {
+      return;
+    }
+    flushPendingRows();
+    if (isPaged()) {
+      List<T> processed = processObjects(objects);
+      processed.forEach(this::invalidateRenderCache);
+      updateFacets(processed, Collections.emptySet());
+      createPagedUpdater().refresh(processed);
+      return;
+    }
+    ListModelList model = getObjectListModel();
+    List<Object> missed = new ArrayList<Object>();
+    for (T object : objects) {
+      object = processObject(object);
+      invalidateRenderCache(object);
+      updateFacets(Collections.singleton(object), Collections.emptySet());
+      int index = indexOf(object);
+      if (index >= 0) {
+        model.set(index, object);
+      } else {
+        missed.add(presenter.getKey(object));
+      }
+    }
+    if (!missed.isEmpty()) {
+      patchObjects(missed);
+    }
+  }
+
+  @Override
+  public void removeObjects(Collection<T> objects) {
+    if (deferToDesktop(() -> removeObjects(objects))) {
+      return;
+    }
+    flushPendingRows();
+    if (isPaged()) {
+      Set<Object> keys = new LinkedHashSet<Object>();
+      for (T object : processObjects(objects)) {
+        invalidateRenderCache(object);
+        keys.add(presenter.getKey(object));
+      }
+      updateFacets(Collections.<T>emptySet(), keys);
+      removePagedObjects(keys);
+      return;
+    }
+    ListModelList model = getObjectListModel();
+    //найдём индексы удаляемых объектов за один проход по модели
+    List<T> processed = processObjects(objects);
+    Set<Object> keys = new HashSet<Object>();
+    for (T object : processed) {
+      invalidateRenderCache(object);
+      keys.add(presenter.getKey(object));
+    }
+    updateFacets(Collections.<T>emptySet(), keys);
+    SortedSet<Integer> indexes = new TreeSet<Integer>();
+    Set<Object> foundKeys = new HashSet<Object>();
+    for (int i = 0; i < model.size(); i++) {
+      Object element = model.get(i);
+      Object key = element instanceof ColumnarListModel.Row
+          ? ((ColumnarListModel.Row) element).getKey()
+          : presenter.getKey((T) element);
+      if (keys.contains(key)) {
+        indexes.add(i);
+        foundKeys.add(key);
+      }
+    }
+    //не найденные по ключу объекты поищем компаратором
+    List<Object> missed = new ArrayList<Object>();
+    for (T object : processed) {
+      Object key = presenter.getKey(object);
+      if (!foundKeys.contains(key)) {
+        int index = indexOf(object);
+        if (index >= 0) {
+          indexes.add(index);
+        } else {
+          missed.add(key);
+        }
+      }
+    }
+    if (!indexes.isEmpty()) {
+      //удаляем непрерывными интервалами с конца, чтобы не сдвигать ещё не удалённые
+      Integer[] sorted = indexes.toArray(new Integer[0]);
+      int end = sorted.length;
+      while (end > 0) {
+        int start = end - 1;
+        while (start > 0 && sorted[start - 1] == sorted[start] - 1) {
+          start--;
+        }
+        model.removeRange(sorted[start], sorted[end - 1] + 1);
+        end = start;
+      }
+      int index = Math.min(Math.max(sorted[0] - 1, 0), model.size() - 1);
+      setSelectedObject(model.isEmpty() ? null : toObject(model.get(index)));
     }
+    if (!missed.isEmpty()) {
+      patchObjects(missed);
+    }
+  }
+
+  @Override
+  public void forEachSelectedObject(Runnable action) {
+    for (T object : getSelectedObjects()) {
+      asyncSelected.set(object);
+      try {
+        action.run();
+      } finally {
+        asyncSelected.remove();
+      }
+    }
+  }
+
+  @Override
+  public Collection<T> getSelectedObjects() {
+    ListModel model = objectsListbox.getModel();
+    if (!(model instanceof Selectable) || ((Selectable) model).getSelection().size() <= 1) {
+      return selected != null ? Collections.singletonList(getSelectedObject()) : Collections.<T>emptyList();
+    }
+    Map<String, Object> changes = getDetailsChanges();
+    List<T> result = new ArrayList<T>();
+    for (Object element : ((Selectable) model).getSelection()) {
+      T object = ClassUtils.clone(toObject(element));
+      for (Map.Entry<String, Object> change : changes.entrySet()) {
+        ClassUtils.setValue(object, change.getKey(), change.getValue());
+      }
+      result.add(object);
+    }
+    return result;
+  }
+
+  /**
+   * Находит значения в секции детализации, изменённые пользователем относительно выбранного объекта.
+   *
+   * @return изменённые значения по путям к свойствам
+   */
+  protected Map<String, Object> getDetailsChanges() {
+    Map<String, Object> result = new HashMap<String, Object>();
+    for (Map.Entry<String, Component> entry : propertyEditors.entrySet()) {
+      String path = entry.getKey();
+      Object value = ZkComponents.getValueFromEditor(entry.getValue());
+      Object original = selected != null ? ClassUtils.getValue(selected, path) : null;
+      Class type = ClassUtils.getType(presenter.getObjectClass(), path);
+      Object converted = value != null && type != null ? ClassUtils.convert(type, value) : value;
+      if (!Objects.equals(emptyToNull(converted), emptyToNull(original))) {
+        result.put(path, converted);
+      }
+    }
+    return result;
+  }
+
+  private static Object emptyToNull(Object value) {
+    return "".equals(value) ? null : value;
   }
 
   @Override
   public T getSelectedObject() {
-    return detailsToObject(selected);
+    T pending = asyncSelected.get();
+    return pending != null ? pending : detailsToObject(selected);
   }
 
   /**
@@ -562,6 +2854,70 @@ public class ZkListFormBuilder<T> implements ListFormView<T> {
     return "Объект успешно сохранён в базу.";
   }
 
+  /**
+   * Создаёт сообщение при ошибке асинхронного сохранения.
+   *
+   * @param object    сохраняемый объект
+   * @param exception ошибка
+   * @return сообщение
+   */
+  protected String createSaveFailureMessage(T object, Throwable exception) {
+    return String.format("Не удалось сохранить объект: %s", exception.getMessage());
+  }
+
+  /**
+   * Создаёт сообщение при успешном сохранении нескольких объектов.
+   *
+   * @param count количество объектов
+   * @return сообщение
+   */
+  protected String createSaveAllSuccessMessage(int count) {
+    return String.format("Объекты (%d) успешно сохранены в базу.", count);
+  }
+
+  /**
+   * Создаёт сообщение о ходе импорта.
+   *
+   * @param count количество прочитанных строк
+   * @return сообщение
+   */
+  protected String createImportProgressMessage(long count) {
+    return String.format("Импортировано строк: %d", count);
+  }
+
+  /**
+   * Создаёт сообщение при успешном импорте.
+   *
+   * @param count количество импортированных объектов
+   * @return сообщение
+   */
+  protected String createImportSuccessMessage(long count) {
+    return String.format("Импорт завершён. Импортировано объектов: %d", count);
+  }
+
+  /**
+   * Создаёт сообщение при ошибке импорта.
+   *
+   * @param exception        ошибка
+   * @param committedBatches количество пакетов, сохранённых до ошибки
+   * @param committedObjects количество объектов в сохранённых пакетах
+   * @return сообщение
+   */
+  protected String createImportFailureMessage(Exception exception, long committedBatches, long committedObjects) {
+    return String.format("Ошибка импорта: %s. До ошибки сохранено пакетов: %d, объектов: %d",
+        exception.getMessage(), committedBatches, committedObjects);
+  }
+
+  /**
+   * Создаёт сообщение для подтверждения удаления нескольких объектов.
+   *
+   * @param count количество удаляемых объектов
+   * @return вопрос на подтверждение удаления
+   */
+  protected String createDeleteAllMessage(int count) {
+    return String.format("Вы действительно хотите удалить объекты (%d)?", count);
+  }
+
   /**
    * Создаёт сообщение для подтверждения удаления объекта.
    *
@@ -575,17 +2931,73 @@ public class ZkListFormBuilder<T> implements ListFormView<T> {
   /**
    * Рендерер для основного списка объектов.
    */
-  private class ObjectListRenderer implements ListitemRenderer {
+  private class ObjectListRenderer implements ListitemRenderer, RendererCtrl, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Nested paths of columns, which are prefetched by presenter
+     */
+    private final Set<String> nestedPaths = new HashSet<String>();
+
+    /**
+     * Range of rows prefetched in the current rendering
+     */
+    private transient int prefetchedFrom;
+    private transient int prefetchedTo;
+
+    /**
+     * Создаёт рендерер колонок основного списка.
+     */
+    public ObjectListRenderer() {
+      updateNestedPaths();
+    }
+
+    /**
+     * Collects nested paths of visible columns.
+     */
+    private void updateNestedPaths() {
+      nestedPaths.clear();
+      for (int i = 0; i < columns.size(); i++) {
+        String path = columns.get(i).getPath();
+        if (isColumnVisible(i) && path.indexOf('.') > 0) {
+          nestedPaths.add(path);
+        }
+      }
+    }
+
+    @Override
+    public void doTry() {
+      prefetchedFrom = 0;
+      prefetchedTo = 0;
+    }
+
+    @Override
+    public void doCatch(Throwable ex) throws Throwable {
+      throw ex;
+    }
 
-    private List<ColumnInfo> columns;
+    @Override
+    public void doFinally() {
+      memoryMonitor.updateIfRequested();
+    }
 
     /**
-     * Создаёт рендерер с указанным списком колонок.
+     * Passes objects of the window starting from specified row to {@link ListFormPresenter#prefetch(List, Set)}.
+     * Window is the rest of the page in paged mode, otherwise {@link #DEFAULT_PREFETCH_SIZE} rows.
      *
-     * @param columns список колонок. Не может быть {@code null}
+     * @param index index of the first row
      */
-    public ObjectListRenderer(List<ColumnInfo> columns) {
-      this.columns = columns;
+    private void prefetch(int index) {
+      ListModel model = objectsListbox.getModel();
+      int end = pageSize > 0 ? (index / pageSize + 1) * pageSize : index + DEFAULT_PREFETCH_SIZE;
+      int to = Math.min(model.getSize(), end);
+      List<T> objects = new ArrayList<T>(Math.max(to - index, 0));
+      for (int i = index; i < to; i++) {
+        objects.add((T) model.getElementAt(i));
+      }
+      prefetchedFrom = index;
+      prefetchedTo = to;
+      presenter.prefetch(objects, nestedPaths);
     }
 
     /**
@@ -602,11 +3014,101 @@ public class ZkListFormBuilder<T> implements ListFormView<T> {
 
     @Override
     public void render(Listitem item, Object data, int index) throws Exception {
-      for (ColumnInfo columnInfo : columns) {
-        String value = formatValue(columnInfo, ClassUtils.getValue(data, columnInfo.getPath()));
-        item.appendChild(new Listcell(value));
+      Function<Object, String[]> formatter = element -> {
+        prefetchIfNeeded(element, index);
+        return formatRow(element);
+      };
+      String[] cells = renderCache != null ? renderCache.getCells(data, presenter, formatter) : formatter.apply(data);
+      for (int i = 0; i < cells.length; i++) {
+        if (isColumnVisible(i)) {
+          item.appendChild(new Listcell(cells[i]));
+        }
+      }
+      if (!replicable) {
+        item.setValue(data);
+      }
+    }
+
+    /**
+     * Prefetches window of rows, if row isn't prefetched yet and nested values will be read.
+     *
+     * @param data  element of main model
+     * @param index index of row
+     */
+    private void prefetchIfNeeded(Object data, int index) {
+      if (!nestedPaths.isEmpty() && !(data instanceof ColumnarListModel.Row)
+          && (index < prefetchedFrom || index >= prefetchedTo)) {
+        prefetch(index);
+      }
+    }
+
+    /**
+     * Reads and formats values of visible columns of the row. Cells of hidden columns are {@code null}.
+     *
+     * @param data element of main model
+     * @return formatted cells
+     */
+    private String[] formatRow(Object data) {
+      String[] cells = new String[columns.size()];
+      for (int i = 0; i < cells.length; i++) {
+        if (isColumnVisible(i)) {
+          cells[i] = formatCell(data, i);
+        }
       }
-      item.setValue(data);
+      return cells;
+    }
+
+    /**
+     * Reads and formats value of the column.
+     *
+     * @param data   element of main model
+     * @param column index of column
+     * @return formatted cell
+     */
+    private String formatCell(Object data, int column) {
+      return formatValue(columns.get(column), readValue(data, column));
+    }
+
+    /**
+     * Reads value of the column.
+     *
+     * @param data   element of main model
+     * @param column index of column
+     * @return value
+     */
+    private Object readValue(Object data, int column) {
+      return data instanceof ColumnarListModel.Row
+          ? ((ColumnarListModel.Row) data).getValue(column)
+          : ClassUtils.getValue(data, columns.get(column).getPath());
+    }
+  }
+
+  /**
+   * Value pushed to editor and value read back from the editor right after that
+   */
+  private static class PushedValue {
+    private final Object value;
+    private final Object editorValue;
+
+    PushedValue(Object value, Object editorValue) {
+      this.value = value;
+      this.editorValue = editorValue;
+    }
+  }
+
+  /**
+   * Model of main list in replication-friendly mode. Objects aren't serialized, empty model is written instead,
+   * and the form reloads objects from {@link ListFormState}.
+   */
+  private static class UnreplicatedListModel extends ListModelList<Object> {
+    private static final long serialVersionUID = 1L;
+
+    UnreplicatedListModel(Collection<?> objects) {
+      super(objects);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+      return new ListModelList<Object>();
     }
   }
 }
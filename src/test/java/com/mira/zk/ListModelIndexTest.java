@@ -0,0 +1,65 @@
+package com.mira.zk;
+
+import org.junit.Test;
+import org.zkoss.zul.ListModelList;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ListModelIndexTest {
+  @Test
+  public void findsElementsAfterChangesOfModel() {
+    ListModelList<String> model = new ListModelList<String>(Arrays.asList("a", "b", "c"));
+    ListModelIndex index = new ListModelIndex(model);
+    assertEquals(2, index.indexOf("c"));
+    model.add(0, "z");
+    assertEquals(3, index.indexOf("c"));
+    model.remove("b");
+    assertEquals(2, index.indexOf("c"));
+    assertEquals(-1, index.indexOf("b"));
+    assertEquals("z", index.find("z"));
+    assertNull(index.find("x"));
+  }
+
+  @Test
+  public void findsFirstOfEqualElements() {
+    ListModelIndex index = new ListModelIndex(new ListModelList<String>(Arrays.asList("a", "b", "a")));
+    assertEquals(0, index.indexOf("a"));
+  }
+
+  @Test
+  public void findsElementsWithBrokenHashCode() {
+    ListModelList<Object> model = new ListModelList<Object>(Arrays.asList(new Broken(1), new Broken(2)));
+    ListModelIndex index = new ListModelIndex(model);
+    assertEquals(1, index.indexOf(new Broken(2)));
+  }
+
+  @Test
+  public void detachedIndexIgnoresModel() {
+    ListModelList<String> model = new ListModelList<String>(Arrays.asList("a", "b"));
+    ListModelIndex index = new ListModelIndex(model);
+    assertEquals(1, index.indexOf("b"));
+    index.detach();
+    model.add(0, "z");
+    //позиция проверяется по модели, поэтому индекс перестраивается и без событий
+    assertEquals(2, index.indexOf("b"));
+  }
+
+  /**
+   * Overrides only {@code equals}, so equal elements have different hashes
+   */
+  private static class Broken {
+    private final int value;
+
+    Broken(int value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Broken && ((Broken) o).value == value;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.mira.zk.components;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrefixLookupProviderTest {
+  private static PrefixLookupProvider<Integer> provider() {
+    Map<Integer, String> captions = new LinkedHashMap<>();
+    captions.put(1, "Москва");
+    captions.put(2, "Мурманск");
+    captions.put(3, " москворецкий ");
+    captions.put(4, "Казань");
+    captions.put(5, null);
+    return new PrefixLookupProvider<>(captions);
+  }
+
+  @Test
+  public void findsValuesByPrefixIgnoringCase() {
+    PrefixLookupProvider<Integer> provider = provider();
+    assertEquals(Arrays.asList(1, 3), provider.find("МОСК", 10));
+    assertEquals(Arrays.asList(3), provider.find("москвор", 10));
+    assertEquals(Arrays.asList(4), provider.find(" ка", 10));
+    assertEquals(Collections.emptyList(), provider.find("я", 10));
+    assertEquals(Collections.emptyList(), provider.find("", 10));
+    assertEquals(5, provider.size());
+  }
+
+  @Test
+  public void limitsNumberOfValues() {
+    assertEquals(Arrays.asList(1, 3), provider().find("м", 2));
+  }
+
+  @Test
+  public void returnsCaptions() {
+    PrefixLookupProvider<Integer> provider = PrefixLookupProvider.of(Arrays.asList(7, 8), value -> "№" + value);
+    assertEquals("№7", provider.getCaption(7));
+    assertEquals("9", provider.getCaption(9));
+    assertEquals(Arrays.asList(8), provider.find("№8", 10));
+  }
+}
@@ -0,0 +1,127 @@
+package com.mira.zk.lists;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+public class ColumnarListModelTest {
+    private final Map<Object, Person> people = new HashMap<Object, Person>();
+
+    private ColumnarListModel<Person> model(Person... objects) {
+        for (Person person : objects) {
+            people.put(person.getId(), person);
+        }
+        List<ColumnInfo> columns = Arrays.<ColumnInfo>asList(new DefaultColumnInfo("name", "Имя", null),
+                new DefaultColumnInfo("age", "Возраст", null));
+        return new ColumnarListModel<Person>(Person.class, columns, Person::getId, people::get,
+                Arrays.asList(objects));
+    }
+
+    @Test
+    public void projectsObjectsToRows() {
+        ColumnarListModel<Person> model = model(new Person(1L, "Анна", 30), new Person(2L, "Борис", null));
+        ColumnarListModel.Row row = (ColumnarListModel.Row) model.get(1);
+        assertEquals(2L, row.getKey());
+        assertEquals("Борис", row.getValue(0));
+        assertNull(row.getValue(1));
+        assertEquals(30, ((ColumnarListModel.Row) model.get(0)).getValue(1));
+        assertSame(people.get(1L), model.materialize((ColumnarListModel.Row) model.get(0)));
+    }
+
+    @Test
+    public void rowsStayValidWhenOtherRowsMove() {
+        ColumnarListModel<Person> model = model(new Person(1L, "Анна", 30), new Person(2L, "Борис", 40));
+        ColumnarListModel.Row second = (ColumnarListModel.Row) model.get(1);
+        model.add(0, new Person(3L, "Вера", 50));
+        assertEquals("Борис", second.getValue(0));
+        model.remove(0);
+        model.remove(0);
+        assertEquals("Борис", second.getValue(0));
+        model.remove(0);
+        assertNull(second.getValue(0));
+    }
+
+    @Test
+    public void findsRowsByKeyAfterChanges() {
+        ColumnarListModel<Person> model = model(new Person(1L, "Анна", 30), new Person(2L, "Борис", 40),
+                new Person(3L, "Вера", 50));
+        assertEquals(2, model.indexOfKey(3L));
+        model.add(1, new Person(4L, "Глеб", 20));
+        assertEquals(1, model.indexOfKey(4L));
+        assertEquals(3, model.indexOfKey(3L));
+        model.remove(0);
+        assertEquals(2, model.indexOfKey(3L));
+        assertEquals(-1, model.indexOfKey(1L));
+        model.set(0, new Person(5L, "Дина", 60));
+        assertEquals(-1, model.indexOfKey(4L));
+        assertEquals(0, model.indexOfKey(5L));
+        assertEquals("Дина", ((ColumnarListModel.Row) model.get(0)).getValue(0));
+        assertEquals(1, model.indexOf(people.get(2L)));
+    }
+
+    @Test
+    public void reusesDictionaryAfterRemoval() {
+        ColumnarListModel<Person> model = model();
+        for (long i = 0; i < 100; i++) {
+            model.add(new Person(i, "Имя " + i, (int) i));
+            model.remove(0);
+        }
+        model.add(new Person(100L, "Имя", 1));
+        assertEquals(1, model.size());
+        assertEquals("Имя", ((ColumnarListModel.Row) model.get(0)).getValue(0));
+    }
+
+    @Test
+    public void rejectsObjectAsItsOwnKey() {
+        List<ColumnInfo> columns = Arrays.<ColumnInfo>asList(new DefaultColumnInfo("name", "Имя", null));
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarListModel<Person>(Person.class, columns,
+                person -> person, key -> (Person) key, Arrays.asList(new Person(1L, "Анна", 30))));
+    }
+
+    public static class Person {
+        private Long id;
+        private String name;
+        private Integer age;
+
+        public Person() {
+        }
+
+        Person(Long id, String name, Integer age) {
+            this.id = id;
+            this.name = name;
+            this.age = age;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+    }
+}
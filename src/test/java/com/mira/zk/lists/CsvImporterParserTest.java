@@ -0,0 +1,69 @@
+package com.mira.zk.lists;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class CsvImporterParserTest {
+    private static CsvImporter.Parser parser(String text) {
+        return new CsvImporter.Parser(new StringReader(text), ';', 10, 20);
+    }
+
+    @Test
+    public void readsPlainAndQuotedCells() throws IOException {
+        CsvImporter.Parser parser = parser("a;\"b;c\";\"d\"\"e\"\r\n;x\n");
+        assertEquals(Arrays.asList("a", "b;c", "d\"e"), parser.readRecord());
+        assertEquals(Arrays.asList("", "x"), parser.readRecord());
+        assertNull(parser.readRecord());
+    }
+
+    @Test
+    public void skipsByteOrderMark() throws IOException {
+        assertEquals(Arrays.asList("a", "b"), parser("\uFEFFa;b").readRecord());
+    }
+
+    @Test
+    public void countsPhysicalLines() throws IOException {
+        CsvImporter.Parser parser = parser("a\n\"b\nc\";d\r\ne\n");
+        parser.readRecord();
+        assertEquals(1, parser.getLine());
+        List<String> record = parser.readRecord();
+        assertEquals(Arrays.asList("b\nc", "d"), record);
+        assertEquals(2, parser.getLine());
+        parser.readRecord();
+        assertEquals(4, parser.getLine());
+    }
+
+    @Test
+    public void rejectsUnclosedQuote() throws IOException {
+        CsvImporter.Parser parser = parser("a\n\"b;c\n");
+        parser.readRecord();
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, parser::readRecord);
+        assertTrue(ex.getMessage(), ex.getMessage().contains("2"));
+    }
+
+    @Test
+    public void limitsCellLength() throws IOException {
+        CsvImporter.Parser parser = parser("0123456789;x\n01234567890\n");
+        assertEquals(Arrays.asList("0123456789", "x"), parser.readRecord());
+        assertThrows(IllegalArgumentException.class, parser::readRecord);
+    }
+
+    @Test
+    public void limitsRecordLength() {
+        assertThrows(IllegalArgumentException.class, () -> parser("0123456789;0123456789;x").readRecord());
+    }
+
+    @Test
+    public void limitsUnclosedQuotedCell() {
+        assertThrows(IllegalArgumentException.class, () -> parser("\"0123456789\n0123456789").readRecord());
+    }
+}
@@ -0,0 +1,109 @@
+package com.mira.zk.lists;
+
+import org.junit.Test;
+import org.zkoss.zul.event.ListDataEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+
+public class PagedListModelTest {
+    /**
+     * Executor without threads, so pages are loaded only on demand
+     */
+    private static final Executor NO_PREFETCH = command -> {
+        throw new RejectedExecutionException();
+    };
+
+    private final List<String> data = new ArrayList<String>();
+    private final List<Integer> loadedOffsets = new ArrayList<Integer>();
+    private final List<Integer> events = new ArrayList<Integer>();
+
+    private PagedListModel<String> model(int size) {
+        for (int i = 0; i < size; i++) {
+            data.add("row" + i);
+        }
+        PagedListModel<String> model = new PagedListModel<String>(size, 3, PagedListModel.DEFAULT_CACHED_PAGES,
+                (offset, count) -> {
+                    loadedOffsets.add(offset);
+                    return new ArrayList<String>(data.subList(offset, Math.min(offset + count, data.size())));
+                }, NO_PREFETCH);
+        model.addListDataListener(event -> events.add(event.getType()));
+        return model;
+    }
+
+    private void assertContents(PagedListModel<String> model) {
+        assertEquals(data.size(), model.getSize());
+        for (int i = 0; i < data.size(); i++) {
+            assertEquals(data.get(i), model.getElementAt(i));
+        }
+    }
+
+    @Test
+    public void loadsPagesOnDemand() {
+        PagedListModel<String> model = model(10);
+        assertEquals("row4", model.getElementAt(4));
+        assertEquals("row5", model.getElementAt(5));
+        assertEquals(1, loadedOffsets.size());
+        assertEquals(3, model.getLoadedSize());
+        assertContents(model);
+        assertEquals("row9", model.getElementAt(9));
+    }
+
+    @Test
+    public void replacesLoadedObjectInPlace() {
+        PagedListModel<String> model = model(10);
+        model.getElementAt(4);
+        int index = model.indexOfLoaded("row4", null);
+        assertEquals(4, index);
+        data.set(4, "changed");
+        model.setLoaded(index, "changed");
+        assertEquals("changed", model.getElementAt(4));
+        assertEquals(1, loadedOffsets.size());
+        assertEquals(ListDataEvent.CONTENTS_CHANGED, (int) events.get(0));
+    }
+
+    @Test
+    public void shiftsLoadedPagesOnRemoval() {
+        PagedListModel<String> model = model(10);
+        model.getElementAt(0);
+        model.getElementAt(3);
+        loadedOffsets.clear();
+        data.remove(1);
+        model.removeLoaded(1);
+        assertEquals(9, model.getSize());
+        assertEquals("row4", model.getElementAt(3));
+        assertEquals("row2", model.getElementAt(1));
+        assertEquals(0, loadedOffsets.size());
+        assertContents(model);
+        assertEquals(ListDataEvent.INTERVAL_REMOVED, (int) events.get(0));
+    }
+
+    @Test
+    public void appendsToLoadedLastPage() {
+        PagedListModel<String> model = model(4);
+        model.getElementAt(3);
+        loadedOffsets.clear();
+        data.add("new");
+        model.add("new");
+        assertEquals(5, model.getSize());
+        assertEquals("new", model.getElementAt(4));
+        assertEquals(0, loadedOffsets.size());
+        assertContents(model);
+    }
+
+    @Test
+    public void resetDropsPagesAndKeepsModel() {
+        PagedListModel<String> model = model(5);
+        model.getElementAt(0);
+        data.add(0, "first");
+        model.reset(6);
+        assertEquals(0, model.getLoadedSize());
+        assertContents(model);
+        assertEquals(ListDataEvent.INTERVAL_ADDED, (int) events.get(0));
+        assertEquals(ListDataEvent.CONTENTS_CHANGED, (int) events.get(1));
+    }
+}
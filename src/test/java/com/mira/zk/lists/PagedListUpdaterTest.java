@@ -0,0 +1,96 @@
+package com.mira.zk.lists;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class PagedListUpdaterTest {
+    private final List<String> data = new ArrayList<String>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger counts = new AtomicInteger();
+
+    private PagedListModel<String> model(int size) {
+        for (int i = 0; i < size; i++) {
+            data.add(i + ":v0");
+        }
+        return new PagedListModel<String>(size, 3, PagedListModel.DEFAULT_CACHED_PAGES, (offset, count) -> {
+            loads.incrementAndGet();
+            return new ArrayList<String>(data.subList(offset, Math.min(offset + count, data.size())));
+        }, command -> {
+            throw new RejectedExecutionException();
+        });
+    }
+
+    private static PagedListUpdater<String> updater(PagedListModel<String> model) {
+        //ключ объекта - номер до двоеточия
+        return new PagedListUpdater<String>(model, object -> object.substring(0, object.indexOf(':')));
+    }
+
+    private int count() {
+        counts.incrementAndGet();
+        return data.size();
+    }
+
+    @Test
+    public void appliesChangesOfLoadedRowsWithoutCounting() {
+        PagedListModel<String> model = model(9);
+        model.getElementAt(3);
+        loads.set(0);
+        data.set(4, "4:v1");
+        data.remove(3);
+        updater(model).apply(new ListFormChanges<String>(1, Arrays.asList("4:v1"), Arrays.asList("3")),
+                this::count);
+        assertEquals(0, counts.get());
+        assertEquals(8, model.getSize());
+        assertEquals("4:v1", model.getElementAt(3));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void keepsPagesIfChangesOutsideDontChangeCount() {
+        PagedListModel<String> model = model(9);
+        model.getElementAt(0);
+        loads.set(0);
+        data.set(7, "7:v1");
+        updater(model).apply(new ListFormChanges<String>(1, Arrays.asList("7:v1"), Collections.emptyList()),
+                this::count);
+        assertEquals(1, counts.get());
+        assertEquals("0:v0", model.getElementAt(0));
+        assertEquals(0, loads.get());
+        assertEquals("7:v1", model.getElementAt(7));
+    }
+
+    @Test
+    public void dropsPagesIfCountChanges() {
+        PagedListModel<String> model = model(9);
+        model.getElementAt(0);
+        data.add(0, "9:v0");
+        updater(model).apply(new ListFormChanges<String>(1, Arrays.asList("9:v0"), Collections.emptyList()),
+                this::count);
+        assertEquals(10, model.getSize());
+        assertEquals("9:v0", model.getElementAt(0));
+    }
+
+    @Test
+    public void removesObjectsByKeys() {
+        PagedListModel<String> model = model(9);
+        model.getElementAt(0);
+        PagedListUpdater<String> updater = updater(model);
+        assertEquals(1, updater.indexOf("1"));
+        data.remove(1);
+        data.remove("7:v0");
+        assertEquals(1, updater.remove(Arrays.asList("1", "7")));
+        assertEquals(7, model.getSize());
+        for (int i = 0; i < data.size(); i++) {
+            assertEquals(data.get(i), model.getElementAt(i));
+        }
+        assertEquals(-1, updater.indexOf("7"));
+    }
+}
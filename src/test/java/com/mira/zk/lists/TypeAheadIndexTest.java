@@ -0,0 +1,72 @@
+package com.mira.zk.lists;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TypeAheadIndexTest {
+    @Test
+    public void findsFirstRowInOrderOfList() {
+        TypeAheadIndex index = new TypeAheadIndex(new Object[]{"Beta", "alpha", "Alpine", null, " alps "});
+        assertEquals(1, index.find("AL"));
+        assertEquals(2, index.find("alpi"));
+        assertEquals(4, index.find("alps"));
+        assertEquals(0, index.find("b"));
+        assertEquals(-1, index.find("c"));
+        assertEquals(-1, index.find(" "));
+    }
+
+    @Test
+    public void followsChangesOfList() {
+        TypeAheadIndex index = new TypeAheadIndex(new Object[]{"one", "two", "three"});
+        index.insert(0, "tea");
+        assertEquals(0, index.find("t"));
+        index.remove(0);
+        assertEquals(1, index.find("t"));
+        index.set(1, "zero");
+        assertEquals(2, index.find("t"));
+        assertEquals(1, index.find("z"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void matchesLinearSearchAfterRandomChanges() {
+        Random random = new Random(42);
+        String[] words = {"a", "ab", "abc", "b", "ba", "bab", "c", "ca", ""};
+        List<String> rows = new ArrayList<String>();
+        TypeAheadIndex index = new TypeAheadIndex(new Object[0]);
+        for (int step = 0; step < 5000; step++) {
+            int operation = random.nextInt(3);
+            String word = words[random.nextInt(words.length)];
+            if (operation == 0 || rows.isEmpty()) {
+                //вставки в одно место исчерпывают промежутки меток
+                int position = random.nextBoolean() ? 0 : random.nextInt(rows.size() + 1);
+                rows.add(position, word);
+                index.insert(position, word);
+            } else if (operation == 1) {
+                int position = random.nextInt(rows.size());
+                rows.remove(position);
+                index.remove(position);
+            } else {
+                int position = random.nextInt(rows.size());
+                rows.set(position, word);
+                index.set(position, word);
+            }
+            String prefix = words[random.nextInt(words.length - 1)];
+            assertEquals(prefix, linearFind(rows, prefix), index.find(prefix));
+        }
+    }
+
+    private static int linearFind(List<String> rows, String prefix) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).startsWith(prefix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}